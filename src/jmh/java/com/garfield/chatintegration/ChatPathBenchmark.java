@@ -0,0 +1,85 @@
+package com.garfield.chatintegration;
+
+import net.kyori.adventure.key.Key;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.event.HoverEvent;
+import net.kyori.adventure.text.format.TextDecoration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * The per-message work {@code ChatListener.onPlayerChat} does before handing off to the webhook
+ * pipeline: markdown rendering of the chat component and the waypoint check, for plain chat and a
+ * xaero waypoint share. Player mentions resolve through an {@link IdentityIndex} in place of JDA.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChatPathBenchmark {
+    private static final String PLAIN = "anyone up for the fortress run? meet at spawn in 5, bring *food* and fire res";
+    private static final String WAYPOINT = "xaero-waypoint:Base:B:-1234:64:5678:6:false:0:Internal-overworld-waypoints";
+
+    private final StringBuilder buffer = new StringBuilder(256);
+    private DiscordMarkdownRenderer renderer;
+    private Component plain;
+    private Component styled;
+    private Component waypoint;
+
+    @Setup
+    public void setup() {
+        UUID linked = UUID.randomUUID();
+        IdentityIndex identities = new IdentityIndex(Map.of(linked, 123456789012345678L));
+        TranslationStore translations = TranslationStore.forLocale("en_us", new File("target"), Logger.getLogger("benchmark"));
+        renderer = new DiscordMarkdownRenderer(translations, identities::getDiscordId);
+        plain = Component.text(PLAIN);
+        styled = Component.text()
+                .append(Component.text("gg "))
+                .append(Component.text("Steve").hoverEvent(HoverEvent.showEntity(Key.key("minecraft:player"), linked)))
+                .append(Component.text(" that was "))
+                .append(Component.text("insane").decorate(TextDecoration.BOLD))
+                .build();
+        waypoint = Component.text(WAYPOINT);
+    }
+
+    private String render(Component message) {
+        buffer.setLength(0);
+        renderer.render(message, buffer);
+        return buffer.toString();
+    }
+
+    @Benchmark
+    public void plainChat(Blackhole blackhole) {
+        blackhole.consume(render(plain));
+        blackhole.consume(WaypointParser.parse(PLAIN));
+    }
+
+    @Benchmark
+    public void styledChatWithMention(Blackhole blackhole) {
+        blackhole.consume(render(styled));
+        blackhole.consume(WaypointParser.parse(PLAIN));
+    }
+
+    @Benchmark
+    public void waypointChat(Blackhole blackhole) {
+        blackhole.consume(render(waypoint));
+        blackhole.consume(WaypointParser.parse(WAYPOINT));
+    }
+}
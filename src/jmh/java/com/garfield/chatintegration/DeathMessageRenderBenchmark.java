@@ -0,0 +1,83 @@
+package com.garfield.chatintegration;
+
+import com.google.gson.JsonObject;
+import net.kyori.adventure.key.Key;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.event.HoverEvent;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * A player death message from {@code PlayerDeathEvent.deathMessage()} to the line sent to Discord:
+ * the original lookup in an org.json copy of en_us.json with {@code String.replace} per argument,
+ * against {@link DiscordMarkdownRenderer} filling the compiled template into a reused buffer. Both
+ * mention the linked victim.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeathMessageRenderBenchmark {
+    @Param({"death.attack.player", "death.attack.player.item"})
+    public String key;
+
+    private final StringBuilder buffer = new StringBuilder(256);
+    private DiscordMarkdownRenderer renderer;
+    private JSONObject legacyTranslations;
+    private JsonObject playersMap;
+    private Component deathMessage;
+
+    @Setup
+    public void setup() throws IOException {
+        UUID victim = UUID.randomUUID();
+        long discordId = 123456789012345678L;
+        IdentityIndex identities = new IdentityIndex(Map.of(victim, discordId));
+        playersMap = new JsonObject();
+        playersMap.addProperty(victim.toString(), Long.toString(discordId));
+        try (InputStream in = DeathMessageRenderBenchmark.class.getResourceAsStream("/en_us.json")) {
+            legacyTranslations = new JSONObject(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        TranslationStore translations = TranslationStore.forLocale("en_us", new File("target"), Logger.getLogger("benchmark"));
+        renderer = new DiscordMarkdownRenderer(translations, identities::getDiscordId);
+
+        Component player = Component.text("Steve").hoverEvent(HoverEvent.showEntity(Key.key("minecraft:player"), victim));
+        Component killer = Component.text("Zombie").color(NamedTextColor.RED);
+        deathMessage = key.equals("death.attack.player")
+                ? Component.translatable(key, player, killer)
+                : Component.translatable(key, player, killer, Component.text("[Diamond_Sword]").color(NamedTextColor.AQUA));
+    }
+
+    @Benchmark
+    public String legacy() {
+        return LegacyBridge.renderDeathMessage(deathMessage, legacyTranslations, playersMap);
+    }
+
+    @Benchmark
+    public String renderer() {
+        buffer.setLength(0);
+        renderer.render(deathMessage, buffer);
+        return buffer.toString();
+    }
+}
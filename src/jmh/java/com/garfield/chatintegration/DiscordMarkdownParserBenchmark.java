@@ -0,0 +1,66 @@
+package com.garfield.chatintegration;
+
+import net.kyori.adventure.text.Component;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing one inbound Discord message at the default 2000 character limit, as
+ * {@code InboundBroadcaster.enqueue} does off the main thread: a typical short message, plain and
+ * heavily formatted text of full length, and inputs made of unmatched delimiters that would make a
+ * naive closing-delimiter search quadratic.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DiscordMarkdownParserBenchmark {
+    private static final int LENGTH = 2000;
+    private static final Map<Long, String> MENTIONS = Map.of(123456789012345678L, "Steve", 223456789012345678L, "Alex");
+
+    @Param({"short", "plain", "formatted", "unmatchedStars", "unmatchedAngles", "openLinks"})
+    public String input;
+
+    private DiscordMarkdownParser parser;
+    private String content;
+
+    @Setup
+    public void setup() {
+        parser = new DiscordMarkdownParser(LENGTH, 8);
+        content = switch (input) {
+            case "short" -> "hey <@123456789012345678> can you **open the gate**? https://example.com/map";
+            case "plain" -> repeat("the quick brown fox jumps over the lazy dog ");
+            case "formatted" -> repeat("**bold** *it* __under__ ~~gone~~ `code` ||secret|| <@223456789012345678> [map](https://example.com) ");
+            case "unmatchedStars" -> repeat("*a");
+            case "unmatchedAngles" -> repeat("<@");
+            default -> repeat("[a](");
+        };
+    }
+
+    private static String repeat(String unit) {
+        StringBuilder out = new StringBuilder(LENGTH + unit.length());
+        while (out.length() < LENGTH) {
+            out.append(unit);
+        }
+        return out.substring(0, LENGTH);
+    }
+
+    @Benchmark
+    public Component parse() {
+        return parser.parse(content, MENTIONS);
+    }
+}
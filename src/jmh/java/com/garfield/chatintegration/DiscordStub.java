@@ -0,0 +1,182 @@
+package com.garfield.chatintegration;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * A local stand-in for Discord's execute-webhook endpoint that records every accepted post. It adds
+ * a configurable response latency, enforces a fixed-window rate limit answered with 429 and
+ * {@code Retry-After} like Discord's per-webhook bucket, and fails a share of posts with 502. No
+ * other Discord endpoint is served, neither the gateway nor the bot's REST API.
+ */
+public class DiscordStub implements AutoCloseable {
+    private static final Pattern WEBHOOK_PATH = Pattern.compile("/api(/v\\d+)?/webhooks/\\d+/[^/]+");
+
+    /**
+     * An accepted post; {@code receivedAt} is {@link System#nanoTime()} when it arrived.
+     */
+    public record Post(long receivedAt, String username, String content) {
+    }
+
+    private record Window(boolean allowed, int remaining, long resetAfterMillis) {
+    }
+
+    private final HttpServer server;
+    private final long latencyMillis;
+    private final long jitterMillis;
+    private final int postsPerWindow;
+    private final long windowMillis;
+    private final double failureRate;
+    private final ConcurrentLinkedQueue<Post> posts = new ConcurrentLinkedQueue<>();
+    private final AtomicLong messageIds = new AtomicLong(1L);
+    private final AtomicLong rateLimited = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private long windowStart;
+    private int windowPosts;
+
+    public DiscordStub(int port, long latencyMillis, long jitterMillis, int postsPerWindow, long windowMillis, double failureRate) throws IOException {
+        this.latencyMillis = latencyMillis;
+        this.jitterMillis = jitterMillis;
+        this.postsPerWindow = postsPerWindow;
+        this.windowMillis = windowMillis;
+        this.failureRate = failureRate;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        this.server.createContext("/api/", this::handle);
+        this.server.setExecutor(Executors.newCachedThreadPool());
+        this.server.start();
+    }
+
+    /**
+     * A webhook URL on this stub, for {@code webhookUrl} or for building a client directly.
+     */
+    public String getWebhookUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/api/webhooks/1/stub";
+    }
+
+    public List<Post> getPosts() {
+        return new ArrayList<>(posts);
+    }
+
+    public long getRateLimited() {
+        return rateLimited.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("POST") || !WEBHOOK_PATH.matcher(exchange.getRequestURI().getPath()).matches()) {
+                respond(exchange, 404, new JSONObject().put("message", "Unknown Webhook").put("code", 10015));
+                return;
+            }
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            sleep(latencyMillis + (jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis + 1) : 0L));
+            Window window = takeRateLimit();
+            if (window != null) {
+                double resetAfter = window.resetAfterMillis() / 1000.0;
+                exchange.getResponseHeaders().set("X-RateLimit-Limit", Integer.toString(postsPerWindow));
+                exchange.getResponseHeaders().set("X-RateLimit-Remaining", Integer.toString(window.remaining()));
+                exchange.getResponseHeaders().set("X-RateLimit-Reset-After", Double.toString(resetAfter));
+                if (!window.allowed()) {
+                    rateLimited.incrementAndGet();
+                    exchange.getResponseHeaders().set("Retry-After", Long.toString((long) Math.ceil(resetAfter)));
+                    respond(exchange, 429, new JSONObject().put("message", "You are being rate limited.")
+                            .put("retry_after", resetAfter).put("global", false));
+                    return;
+                }
+            }
+            if (failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate) {
+                failed.incrementAndGet();
+                respond(exchange, 502, new JSONObject().put("message", "Bad Gateway").put("code", 0));
+                return;
+            }
+            JSONObject payload = new JSONObject(body);
+            String username = payload.optString("username", "Webhook");
+            String content = payload.optString("content", "");
+            posts.add(new Post(System.nanoTime(), username, content));
+            respond(exchange, 200, message(username, content));
+        }
+    }
+
+    /**
+     * Counts a post against the current window, or returns null when rate limiting is off. The
+     * headers sent from it let clients pace themselves the way they do against Discord.
+     */
+    private synchronized Window takeRateLimit() {
+        if (postsPerWindow <= 0) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if (now - windowStart >= windowMillis) {
+            windowStart = now;
+            windowPosts = 0;
+        }
+        boolean allowed = windowPosts < postsPerWindow;
+        if (allowed) {
+            windowPosts++;
+        }
+        return new Window(allowed, postsPerWindow - windowPosts, Math.max(1L, windowStart + windowMillis - now));
+    }
+
+    private JSONObject message(String username, String content) {
+        JSONObject author = new JSONObject()
+                .put("id", "1")
+                .put("username", username)
+                .put("discriminator", "0000")
+                .put("avatar", JSONObject.NULL)
+                .put("bot", true);
+        return new JSONObject()
+                .put("id", Long.toString(messageIds.getAndIncrement()))
+                .put("channel_id", "1")
+                .put("author", author)
+                .put("content", content)
+                .put("tts", false)
+                .put("mention_everyone", false)
+                .put("flags", 0)
+                .put("mentions", new JSONArray())
+                .put("mention_roles", new JSONArray())
+                .put("embeds", new JSONArray())
+                .put("attachments", new JSONArray());
+    }
+
+    private static void respond(HttpExchange exchange, int status, JSONObject json) throws IOException {
+        byte[] body = json.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,94 @@
+package com.garfield.chatintegration;
+
+import com.google.gson.JsonObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Discord ID to player lookups as done per inbound Discord message, and the reverse lookup used for
+ * mentions, against discord.json mappings of 1k, 10k and 100k links. The legacy variants run the
+ * original scan and {@code JsonObject} lookups on the same data.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IdentityLookupBenchmark {
+    private static final int PROBES = 1024;
+
+    @Param({"1000", "10000", "100000"})
+    public int links;
+
+    private IdentityIndex index;
+    private JsonObject playersMap;
+    private final long[] discordIds = new long[PROBES];
+    private final String[] discordIdStrings = new String[PROBES];
+    private final UUID[] players = new UUID[PROBES];
+    private final String[] playerStrings = new String[PROBES];
+    private int next;
+
+    @Setup
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(42);
+        Map<UUID, Long> mapping = new LinkedHashMap<>(links * 2);
+        playersMap = new JsonObject();
+        UUID[] allPlayers = new UUID[links];
+        for (int i = 0; i < links; i++) {
+            UUID player = new UUID(random.nextLong(), random.nextLong());
+            long discordId = 100_000_000_000_000_000L + random.nextLong(900_000_000_000_000_000L);
+            allPlayers[i] = player;
+            mapping.put(player, discordId);
+            playersMap.addProperty(player.toString(), Long.toString(discordId));
+        }
+        index = new IdentityIndex(mapping);
+        for (int i = 0; i < PROBES; i++) {
+            UUID player = allPlayers[random.nextInt(links)];
+            players[i] = player;
+            playerStrings[i] = player.toString();
+            discordIds[i] = mapping.get(player);
+            discordIdStrings[i] = Long.toString(discordIds[i]);
+        }
+    }
+
+    private int probe() {
+        next = (next + 1) & (PROBES - 1);
+        return next;
+    }
+
+    @Benchmark
+    public UUID playerByDiscordId() {
+        return index.getPlayerId(discordIds[probe()]);
+    }
+
+    @Benchmark
+    public String playerByDiscordIdLegacyScan() {
+        return LegacyBridge.findPlayerByScan(playersMap, discordIdStrings[probe()]);
+    }
+
+    @Benchmark
+    public long discordIdByPlayer() {
+        return index.getDiscordId(players[probe()]);
+    }
+
+    @Benchmark
+    public String discordIdByPlayerLegacy() {
+        return LegacyBridge.getDiscordIdFromUUID(playersMap, playerStrings[probe()]);
+    }
+}
@@ -0,0 +1,81 @@
+package com.garfield.chatintegration;
+
+import com.google.gson.JsonObject;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
+import net.kyori.adventure.text.TranslatableComponent;
+import net.kyori.adventure.text.event.HoverEvent;
+import net.kyori.adventure.text.serializer.plain.PlainTextComponentSerializer;
+import org.json.JSONObject;
+
+import java.util.List;
+
+/**
+ * Copies of the original bridge code paths, kept only as baselines for the benchmarks: the linear
+ * discord.json scan, and death message rendering via per-argument {@code String.replace} followed
+ * by a regex pass.
+ */
+final class LegacyBridge {
+    private LegacyBridge() {
+    }
+
+    static String findPlayerByScan(JsonObject playersMap, String discordId) {
+        String playerId = null;
+        for (String key : playersMap.keySet()) {
+            if (playersMap.get(key).getAsString().equals(discordId)) {
+                playerId = key;
+                break;
+            }
+        }
+        return playerId;
+    }
+
+    static String getDiscordIdFromUUID(JsonObject playersMap, String playerId) {
+        if (playersMap.has(playerId)) {
+            return playersMap.get(playerId).getAsString();
+        } else return null;
+    }
+
+    static String renderDeathMessage(Component deathMessage, JSONObject translations, JsonObject playersMap) {
+        String plainTextDeathMessage;
+        if (deathMessage instanceof TranslatableComponent translatable) {
+            String key = translatable.key();
+            String translation = translations.optString(key, key);
+            plainTextDeathMessage = replacePlaceholdersWithMentions(translation, translatable.args(), playersMap);
+        } else {
+            plainTextDeathMessage = PlainTextComponentSerializer.plainText().serialize(deathMessage);
+        }
+        return plainTextDeathMessage.replaceAll("§[0-9a-fA-FklmnoK-LOrR]", "");
+    }
+
+    static String replacePlaceholdersWithMentions(String translation, List<Component> args, JsonObject playersMap) {
+        String result = translation;
+
+        for (int i = 0; i < args.size(); i++) {
+            Component arg = args.get(i);
+            String uuid = extractUUID(arg);
+            if (uuid != null) {
+                String discordId = getDiscordIdFromUUID(playersMap, uuid);
+                if (discordId != null) {
+                    result = result.replace("%" + (i + 1) + "$s", "<@" + discordId + ">");
+                    continue;
+                }
+            }
+            String argText = PlainTextComponentSerializer.plainText().serialize(arg);
+            result = result.replace("%" + (i + 1) + "$s", argText);
+        }
+
+        return result;
+    }
+
+    private static String extractUUID(Component component) {
+        if (component instanceof TextComponent) {
+            HoverEvent<?> hoverEvent = component.style().hoverEvent();
+            if (hoverEvent != null && hoverEvent.action() == HoverEvent.Action.SHOW_ENTITY) {
+                HoverEvent.ShowEntity showEntity = (HoverEvent.ShowEntity) hoverEvent.value();
+                return showEntity.id().toString();
+            }
+        }
+        return null;
+    }
+}
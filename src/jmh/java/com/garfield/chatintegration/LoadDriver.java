@@ -0,0 +1,458 @@
+package com.garfield.chatintegration;
+
+import club.minnced.discord.webhook.WebhookClient;
+import club.minnced.discord.webhook.WebhookClientBuilder;
+import net.kyori.adventure.text.Component;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import org.bukkit.NamespacedKey;
+import org.bukkit.advancement.Advancement;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.PlayerDeathEvent;
+import org.bukkit.event.player.PlayerAdvancementDoneEvent;
+import org.bukkit.plugin.PluginDescriptionFile;
+import org.mockbukkit.mockbukkit.MockBukkit;
+import org.mockbukkit.mockbukkit.ServerMock;
+import org.mockbukkit.mockbukkit.entity.PlayerMock;
+
+import java.io.File;
+import java.lang.reflect.Array;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs the plugin on a MockBukkit server with simulated players chatting, joining, leaving, dying
+ * and making advancements on a 20 TPS loop, plus synthetic Discord users writing in game. Webhook
+ * posts go to a {@link DiscordStub}, and at the end it prints end-to-end latency and delivery per
+ * message kind, the main thread time per tick and the plugin's own counters. Everything runs
+ * offline.
+ *
+ * <p>Only the webhook path is covered. The bot is never started, so nothing here exercises the JDA
+ * gateway or REST calls: member lookups, presence and topic updates, slash commands and Discord
+ * messages arriving over the gateway. The synthetic Discord users are handed straight to
+ * {@link InboundBroadcaster}, so only the in-game side of inbound traffic is measured.
+ *
+ * <p>Run with {@code mvn -Pbenchmarks test-compile exec:exec -Dbench.main=com.garfield.chatintegration.LoadDriver
+ * -Djmh.args="--players 300 --seconds 60"}. Options are listed in {@link #DEFAULTS}; plugin settings
+ * can be overridden with {@code --set webhook.batchSize=10}.
+ */
+public class LoadDriver {
+    private static final Map<String, String> DEFAULTS = Map.ofEntries(
+            Map.entry("players", "300"),
+            Map.entry("seconds", "60"),
+            Map.entry("linkedShare", "0.5"),
+            Map.entry("chatPerPlayerPerMinute", "2"),
+            Map.entry("joinsLeavesPerMinute", "60"),
+            Map.entry("deathsPerMinute", "20"),
+            Map.entry("advancementsPerMinute", "10"),
+            Map.entry("inboundPerSecond", "2"),
+            Map.entry("stubLatencyMillis", "80"),
+            Map.entry("stubJitterMillis", "60"),
+            Map.entry("stubPostsPerWindow", "5"),
+            Map.entry("stubWindowMillis", "2000"),
+            Map.entry("stubFailureRate", "0.01"),
+            Map.entry("drainSeconds", "60"),
+            Map.entry("seed", "1"));
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final Pattern TOKEN = Pattern.compile("lt\\d+x");
+
+    private enum Kind {
+        CHAT,
+        JOIN,
+        LEAVE,
+        DEATH,
+        ADVANCEMENT
+    }
+
+    private record Sent(Kind kind, long at) {
+    }
+
+    private final Map<String, String> options;
+    private final YamlConfiguration settings;
+    private final Random random;
+    private final AtomicLong tokens = new AtomicLong();
+    private final Map<String, Sent> sentByToken = new ConcurrentHashMap<>();
+    private final Map<String, Deque<Sent>> sentByLine = new HashMap<>();
+    private final Map<Kind, Integer> sentCounts = new EnumMap<>(Kind.class);
+    private final Map<PlayerMock, Long> discordIds = new HashMap<>();
+    private final List<PlayerMock> players = new ArrayList<>();
+    private int linked;
+    private String deathToken;
+
+    private LoadDriver(Map<String, String> options, YamlConfiguration settings) {
+        this.options = options;
+        this.settings = settings;
+        this.random = new Random(Long.parseLong(options.get("seed")));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>(DEFAULTS);
+        YamlConfiguration settings = new YamlConfiguration();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--set") && i + 1 < args.length) {
+                String[] setting = args[++i].split("=", 2);
+                settings.set(setting[0], parseValue(setting.length > 1 ? setting[1] : ""));
+            } else if (args[i].startsWith("--") && i + 1 < args.length && DEFAULTS.containsKey(args[i].substring(2))) {
+                options.put(args[i].substring(2), args[++i]);
+            } else {
+                System.err.println("Unknown option " + args[i] + ", expected one of " + DEFAULTS.keySet() + " or --set key=value");
+                System.exit(2);
+            }
+        }
+        new LoadDriver(options, settings).run();
+    }
+
+    private static Object parseValue(String value) {
+        if (value.equals("true") || value.equals("false")) {
+            return Boolean.parseBoolean(value);
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            try {
+                return Double.parseDouble(value);
+            } catch (NumberFormatException ignored) {
+                return value;
+            }
+        }
+    }
+
+    private int intOption(String name) {
+        return Integer.parseInt(options.get(name));
+    }
+
+    private double doubleOption(String name) {
+        return Double.parseDouble(options.get(name));
+    }
+
+    private void run() throws Exception {
+        try (DiscordStub stub = new DiscordStub(0, intOption("stubLatencyMillis"), intOption("stubJitterMillis"),
+                intOption("stubPostsPerWindow"), intOption("stubWindowMillis"), doubleOption("stubFailureRate"))) {
+            ServerMock server = MockBukkit.mock();
+            ScheduledExecutorService inbound = Executors.newSingleThreadScheduledExecutor();
+            try {
+                // onEnable saves the default config and the plugin jar has none, so write one where
+                // MockBukkit will put the data folder.
+                PluginDescriptionFile description = new PluginDescriptionFile(LoadDriver.class.getResourceAsStream("/plugin.yml"));
+                File dataFolder = new File(server.getPluginManager().getParentTemporaryDirectory(), description.getName() + "-" + description.getVersion());
+                Files.createDirectories(dataFolder.toPath());
+                settings.save(new File(dataFolder, "config.yml"));
+                ChatIntegration plugin = MockBukkit.loadWithConfig(ChatIntegration.class, settings);
+                DiscordListener discord = plugin.getDiscordListener();
+                discord.getWebhookPipeline().start(stubClient(stub), Thread.ofPlatform().name("load-webhook-sender").daemon().factory());
+                server.getPluginManager().registerEvents(new DeathMessages(), plugin);
+
+                linked = Math.max(1, (int) (intOption("players") * doubleOption("linkedShare")));
+                for (int i = 0; i < intOption("players"); i++) {
+                    PlayerMock player = server.addPlayer("Load" + i);
+                    players.add(player);
+                    if (i < linked) {
+                        long discordId = discordId(i);
+                        discordIds.put(player, discordId);
+                        discord.getLinkStore().link(player.getUniqueId(), discordId);
+                    }
+                }
+                int skipPosts = settle(server, discord, stub);
+
+                long inboundPeriod = (long) (1_000_000L / Math.max(0.001, doubleOption("inboundPerSecond")));
+                AtomicLong inboundSeq = new AtomicLong();
+                inbound.scheduleAtFixedRate(() -> discord.getInboundBroadcaster().enqueue(inboundMessage(inboundSeq.incrementAndGet())),
+                        inboundPeriod, inboundPeriod, TimeUnit.MICROSECONDS);
+
+                long[] tickNanos = drive(server);
+                inbound.shutdownNow();
+                long runEnd = System.nanoTime();
+                drain(discord, stub);
+                List<DiscordStub.Post> posts = stub.getPosts();
+                report(plugin, stub, posts.subList(skipPosts, posts.size()), tickNanos, runEnd);
+            } finally {
+                inbound.shutdownNow();
+                MockBukkit.unmock();
+            }
+        }
+    }
+
+    /**
+     * A webhook client for the stub's URL; requests keep Discord's path so the stub sees what
+     * Discord would.
+     */
+    private static WebhookClient stubClient(DiscordStub stub) {
+        HttpUrl target = HttpUrl.get(stub.getWebhookUrl());
+        OkHttpClient httpClient = new OkHttpClient.Builder()
+                .addInterceptor(chain -> {
+                    Request request = chain.request();
+                    HttpUrl url = request.url().newBuilder().scheme(target.scheme()).host(target.host()).port(target.port()).build();
+                    return chain.proceed(request.newBuilder().url(url).build());
+                })
+                .build();
+        return new WebhookClientBuilder(1L, "stub")
+                .setHttpClient(httpClient)
+                .build();
+    }
+
+    /**
+     * Ticks until the join messages of the initial player list have been delivered, returning how
+     * many stub posts to leave out of the report.
+     */
+    private static int settle(ServerMock server, DiscordListener discord, DiscordStub stub) throws InterruptedException {
+        int posts = -1;
+        for (int quiet = 0; quiet < 20; ) {
+            server.getScheduler().performOneTick();
+            Thread.sleep(50);
+            int now = stub.getPosts().size();
+            quiet = (now == posts && discord.getWebhookPipeline().getQueueDepth() == 0) ? quiet + 1 : 0;
+            posts = now;
+        }
+        return posts;
+    }
+
+    private long[] drive(ServerMock server) throws InterruptedException {
+        int ticks = intOption("seconds") * 20;
+        long[] tickNanos = new long[ticks];
+        double chatPerTick = intOption("players") * doubleOption("chatPerPlayerPerMinute") / 1200.0;
+        double joinLeavePerTick = doubleOption("joinsLeavesPerMinute") / 1200.0;
+        double deathsPerTick = doubleOption("deathsPerMinute") / 1200.0;
+        double advancementsPerTick = doubleOption("advancementsPerMinute") / 1200.0;
+        double chatDue = 0;
+        double joinLeaveDue = 0;
+        double deathsDue = 0;
+        double advancementsDue = 0;
+        long next = System.nanoTime();
+        for (int tick = 0; tick < ticks; tick++) {
+            long start = System.nanoTime();
+            for (chatDue += chatPerTick; chatDue >= 1; chatDue--) {
+                PlayerMock player = onlinePlayer();
+                if (player != null) {
+                    chat(player);
+                }
+            }
+            for (joinLeaveDue += joinLeavePerTick; joinLeaveDue >= 1; joinLeaveDue--) {
+                joinOrLeave(players.get(random.nextInt(players.size())));
+            }
+            for (deathsDue += deathsPerTick; deathsDue >= 1; deathsDue--) {
+                PlayerMock player = onlinePlayer();
+                if (player != null) {
+                    die(player);
+                }
+            }
+            for (advancementsDue += advancementsPerTick; advancementsDue >= 1; advancementsDue--) {
+                PlayerMock player = onlinePlayer();
+                if (player != null) {
+                    advance(server, player);
+                }
+            }
+            server.getScheduler().performOneTick();
+            tickNanos[tick] = System.nanoTime() - start;
+            next += TICK_NANOS;
+            long sleep = next - System.nanoTime();
+            if (sleep > 0) {
+                TimeUnit.NANOSECONDS.sleep(sleep);
+            }
+        }
+        return tickNanos;
+    }
+
+    private PlayerMock onlinePlayer() {
+        for (int attempt = 0; attempt < players.size() * 4; attempt++) {
+            PlayerMock player = players.get(random.nextInt(players.size()));
+            if (player.isOnline()) {
+                return player;
+            }
+        }
+        return null;
+    }
+
+    private String nextToken() {
+        return "lt" + tokens.incrementAndGet() + "x";
+    }
+
+    private void sent(Kind kind) {
+        sentCounts.merge(kind, 1, Integer::sum);
+    }
+
+    private void chat(PlayerMock player) {
+        String token = nextToken();
+        sentByToken.put(token, new Sent(Kind.CHAT, System.nanoTime()));
+        sent(Kind.CHAT);
+        player.chat("anyone up for the nether? " + token);
+    }
+
+    private void joinOrLeave(PlayerMock player) {
+        String name = discordIds.containsKey(player) ? "<@" + discordIds.get(player) + ">" : player.getName();
+        Kind kind = player.isOnline() ? Kind.LEAVE : Kind.JOIN;
+        String line = name + (kind == Kind.JOIN ? " has joined the game" : " has left the game");
+        sentByLine.computeIfAbsent(line, key -> new ArrayDeque<>()).add(new Sent(kind, System.nanoTime()));
+        sent(kind);
+        if (kind == Kind.JOIN) {
+            player.reconnect();
+        } else {
+            player.disconnect();
+        }
+    }
+
+    private void die(PlayerMock player) {
+        deathToken = nextToken();
+        sentByToken.put(deathToken, new Sent(Kind.DEATH, System.nanoTime()));
+        sent(Kind.DEATH);
+        player.setHealth(0);
+        player.respawn();
+    }
+
+    private void advance(ServerMock server, PlayerMock player) {
+        String token = nextToken();
+        Component title = Component.text("Load Tested " + token);
+        sentByToken.put(token, new Sent(Kind.ADVANCEMENT, System.nanoTime()));
+        sent(Kind.ADVANCEMENT);
+        server.getPluginManager().callEvent(new PlayerAdvancementDoneEvent(player, advancement(token, title), title));
+    }
+
+    /**
+     * MockBukkit has no advancements, so this answers the handful of calls the chat listener makes
+     * and returns defaults for everything else.
+     */
+    private static Advancement advancement(String token, Component title) {
+        NamespacedKey key = NamespacedKey.minecraft("load/" + token);
+        return (Advancement) Proxy.newProxyInstance(LoadDriver.class.getClassLoader(), new Class<?>[]{Advancement.class}, (proxy, method, args) ->
+                switch (method.getName()) {
+                    case "getKey", "key" -> key;
+                    case "getDisplay", "display" -> Proxy.newProxyInstance(LoadDriver.class.getClassLoader(), new Class<?>[]{method.getReturnType()},
+                            (display, displayMethod, displayArgs) -> switch (displayMethod.getName()) {
+                                case "title", "displayName" -> title;
+                                case "description" -> Component.text("Survived the load test");
+                                case "doesAnnounceToChat" -> true;
+                                default -> defaultValue(displayMethod.getReturnType());
+                            });
+                    case "toString" -> key.toString();
+                    case "hashCode" -> key.hashCode();
+                    case "equals" -> proxy == args[0];
+                    default -> defaultValue(method.getReturnType());
+                });
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        return type.isPrimitive() && type != void.class ? Array.get(Array.newInstance(type, 1), 0) : null;
+    }
+
+    /**
+     * Replaces MockBukkit's death message with a translated one carrying the sample's token.
+     */
+    private class DeathMessages implements Listener {
+        @EventHandler(priority = EventPriority.LOWEST)
+        public void onPlayerDeath(PlayerDeathEvent event) {
+            event.deathMessage(Component.translatable("death.attack.mob",
+                    Component.text(event.getEntity().getName()), Component.text("Zombie " + deathToken)));
+        }
+    }
+
+    private static long discordId(int player) {
+        return 100_000_000_000_000_000L + player;
+    }
+
+    /**
+     * A message from the Discord side of a linked player, as {@code DiscordListener} builds it.
+     */
+    private InboundBroadcaster.InboundMessage inboundMessage(long sequence) {
+        int user = (int) (sequence % linked);
+        return new InboundBroadcaster.InboundMessage(discordId(user), "Load" + user, "DiscordUser" + user,
+                "is **anyone** online? <@" + discordId(0) + "> https://example.com/map", Map.of(discordId(0), "Load0"),
+                null, List.of(), System.nanoTime());
+    }
+
+    private void drain(DiscordListener discord, DiscordStub stub) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(intOption("drainSeconds"));
+        int posts = -1;
+        for (int quiet = 0; quiet < 40 && System.nanoTime() < deadline; ) {
+            Thread.sleep(50);
+            int now = stub.getPosts().size();
+            quiet = (now == posts && discord.getWebhookPipeline().getQueueDepth() == 0) ? quiet + 1 : 0;
+            posts = now;
+        }
+    }
+
+    private void report(ChatIntegration plugin, DiscordStub stub, List<DiscordStub.Post> posts, long[] tickNanos, long runEnd) {
+        Map<Kind, List<Long>> latencies = new EnumMap<>(Kind.class);
+        int lines = 0;
+        long lastReceived = runEnd;
+        for (DiscordStub.Post post : posts) {
+            lastReceived = Math.max(lastReceived, post.receivedAt());
+            for (String line : post.content().split("\n")) {
+                lines++;
+                Sent sent = null;
+                Matcher token = TOKEN.matcher(line);
+                if (token.find()) {
+                    sent = sentByToken.remove(token.group());
+                } else {
+                    Deque<Sent> pending = sentByLine.get(line);
+                    if (pending != null) {
+                        sent = pending.poll();
+                    }
+                }
+                if (sent != null) {
+                    latencies.computeIfAbsent(sent.kind(), kind -> new ArrayList<>()).add(post.receivedAt() - sent.at());
+                }
+            }
+        }
+
+        int seconds = intOption("seconds");
+        System.out.printf("%n%d players for %ds: %d posts carrying %d lines (%.1f lines/s), %d rate limited, %d failed at the stub%n",
+                players.size(), seconds, posts.size(), lines, lines / (double) seconds, stub.getRateLimited(), stub.getFailed());
+        System.out.printf("Last post arrived %.1fs after the run ended%n", (lastReceived - runEnd) / 1e9);
+        System.out.printf("%-12s %8s %9s %9s %9s %9s%n", "kind", "sent", "received", "p50 ms", "p99 ms", "max ms");
+        for (Kind kind : Kind.values()) {
+            long[] sorted = latencies.getOrDefault(kind, List.of()).stream().mapToLong(Long::longValue).sorted().toArray();
+            System.out.printf("%-12s %8d %9d %9.1f %9.1f %9.1f%n", kind.name().toLowerCase(), sentCounts.getOrDefault(kind, 0), sorted.length,
+                    percentile(sorted, 50) / 1e6, percentile(sorted, 99) / 1e6, sorted.length > 0 ? sorted[sorted.length - 1] / 1e6 : 0.0);
+        }
+
+        long[] ticks = tickNanos.clone();
+        Arrays.sort(ticks);
+        long overBudget = Arrays.stream(ticks).filter(nanos -> nanos > TICK_NANOS).count();
+        System.out.printf("Main thread per tick (events fired + scheduler): p50 %.3f ms, p99 %.3f ms, max %.3f ms, %d of %d ticks over 50 ms%n",
+                percentile(ticks, 50) / 1e6, percentile(ticks, 99) / 1e6, ticks[ticks.length - 1] / 1e6, overBudget, ticks.length);
+        System.out.println(plugin.getHandlerTimings().summary());
+
+        BridgeMetrics metrics = plugin.getBridgeMetrics();
+        StringBuilder counters = new StringBuilder("Counters:");
+        metrics.counters().forEach((name, counter) -> {
+            if (counter.sum() != 0) {
+                counters.append(' ').append(name).append('=').append(counter.sum());
+            }
+        });
+        metrics.gauges().forEach((name, value) -> counters.append(' ').append(name).append('=').append(value));
+        System.out.println(counters);
+        for (LatencyHistogram histogram : metrics.histograms()) {
+            if (histogram.getCount() > 0) {
+                System.out.printf("%s: n=%d p50 %.1f ms, p99 %.1f ms, max %.1f ms%n", histogram.getName(), histogram.getCount(),
+                        histogram.getPercentileMillis(50), histogram.getPercentileMillis(99), histogram.getMaxMillis());
+            }
+        }
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0L;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+}
@@ -0,0 +1,85 @@
+package com.garfield.chatintegration;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Filling a death translation with its arguments: the original per-argument
+ * {@code String.replace} plus regex strip of section-sign codes on the en_us.json string, against the
+ * {@link MessageTemplate} the {@link TranslationStore} holds for {@code key}, rendered in one pass into
+ * a reused buffer with escaping and stripping inline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageTemplateBenchmark {
+    @Param({"death.attack.player", "death.attack.player.item"})
+    public String key;
+
+    private static final String[] ARGS = {"<@123456789012345678>", "§cZombie§r", "§b[Diamond Sword]"};
+
+    private final StringBuilder buffer = new StringBuilder(256);
+    private String translation;
+    private MessageTemplate template;
+    private MessageTemplate.Visitor visitor;
+
+    @Setup
+    public void setup() throws IOException {
+        try (InputStream in = MessageTemplateBenchmark.class.getResourceAsStream("/en_us.json")) {
+            translation = new JSONObject(new String(in.readAllBytes(), StandardCharsets.UTF_8)).getString(key);
+        }
+        template = TranslationStore.forLocale("en_us", new File("target"), Logger.getLogger("benchmark")).get(key);
+        visitor = new MessageTemplate.Visitor() {
+            @Override
+            public void literal(String text) {
+                buffer.append(text);
+            }
+
+            @Override
+            public boolean argument(int slot) {
+                if (slot == 0) {
+                    buffer.append(ARGS[0]);
+                } else {
+                    DiscordMarkdownRenderer.appendEscaped(buffer, ARGS[slot]);
+                }
+                return true;
+            }
+        };
+    }
+
+    @Benchmark
+    public String legacyReplace() {
+        String result = translation;
+        for (int i = 0; i < ARGS.length; i++) {
+            result = result.replace("%" + (i + 1) + "$s", ARGS[i]);
+        }
+        return result.replaceAll("§[0-9a-fA-FklmnoK-LOrR]", "");
+    }
+
+    @Benchmark
+    public String compiledTemplate() {
+        buffer.setLength(0);
+        template.accept(visitor);
+        return buffer.toString();
+    }
+}
@@ -0,0 +1,77 @@
+package com.garfield.chatintegration;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Logger;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link OutboundSpool#append} as called from {@code WebhookPipeline.submit} on the main thread, with
+ * the default segment size so the sample-time tail includes segment rotation, with segment cleanup
+ * on a {@link BridgeExecutor} as in the plugin. Records are
+ * acknowledged in batches like the sender does, keeping the spool at a steady size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OutboundSpoolBenchmark {
+    private static final int ACKNOWLEDGE_EVERY = 20;
+
+    @Param({"64", "512", "2048"})
+    public int payloadBytes;
+
+    private File directory;
+    private BridgeExecutor executor;
+    private OutboundSpool spool;
+    private byte[] payload;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("spool-bench").toFile();
+        executor = new BridgeExecutor(Logger.getLogger("bench"));
+        spool = new OutboundSpool(directory, Logger.getLogger("bench"), executor, 4 << 20, 64L << 20);
+        payload = new byte[payloadBytes];
+        ThreadLocalRandom.current().nextBytes(payload);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdown(10_000L);
+        spool.close();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            Arrays.stream(files).forEach(File::delete);
+        }
+        directory.delete();
+    }
+
+    @Benchmark
+    public long append() throws IOException {
+        long sequence = spool.append(0L, payload);
+        if (sequence % ACKNOWLEDGE_EVERY == 0) {
+            spool.acknowledge(sequence);
+        }
+        return sequence;
+    }
+}
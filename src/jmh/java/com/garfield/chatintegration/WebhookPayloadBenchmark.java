@@ -0,0 +1,75 @@
+package com.garfield.chatintegration;
+
+import club.minnced.discord.webhook.send.AllowedMentions;
+import club.minnced.discord.webhook.send.WebhookEmbed;
+import club.minnced.discord.webhook.send.WebhookMessage;
+import club.minnced.discord.webhook.send.WebhookMessageBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Payload building for a burst of chat lines from one sender: the original one
+ * {@code WebhookMessageBuilder} per line against {@link WebhookPipeline#buildPost} on the
+ * coalesced batch. Nothing is sent; the webhook client is not involved.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WebhookPayloadBenchmark {
+    @Param({"1", "10"})
+    public int lines;
+
+    private final StringBuilder content = new StringBuilder(2000);
+    private final List<WebhookEmbed> embeds = new ArrayList<>();
+    private List<WebhookPipeline.OutboundMessage> batch;
+
+    @Setup
+    public void setup() {
+        batch = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            batch.add(new WebhookPipeline.OutboundMessage("line " + i + " of a busy chat burst near spawn", null, "Steve",
+                    "https://mc-heads.net/avatar/Steve", WebhookPipeline.Kind.CHAT, 0L, System.nanoTime(), 0L));
+        }
+    }
+
+    @Benchmark
+    public void perMessageBuilder(Blackhole blackhole) {
+        for (WebhookPipeline.OutboundMessage message : batch) {
+            WebhookMessageBuilder builder = new WebhookMessageBuilder()
+                    .setAllowedMentions(AllowedMentions.none())
+                    .setUsername(message.username())
+                    .setAvatarUrl(message.avatarUrl());
+            builder.setContent(message.content());
+            blackhole.consume(builder.build());
+        }
+    }
+
+    @Benchmark
+    public WebhookMessage coalescedPost() {
+        content.setLength(0);
+        for (WebhookPipeline.OutboundMessage message : batch) {
+            if (!content.isEmpty()) {
+                content.append('\n');
+            }
+            content.append(message.content());
+        }
+        return WebhookPipeline.buildPost(batch.get(0), content, embeds);
+    }
+}
@@ -0,0 +1,45 @@
+package com.garfield.chatintegration;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandExecutor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.TabCompleter;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+public class BridgeCommand implements CommandExecutor, TabCompleter {
+    private final BridgeMetrics metrics;
+    private final HandlerTimings handlerTimings;
+
+    public BridgeCommand(BridgeMetrics metrics, HandlerTimings handlerTimings) {
+        this.metrics = metrics;
+        this.handlerTimings = handlerTimings;
+    }
+
+    @Override
+    public boolean onCommand(@NotNull CommandSender sender, @NotNull Command command, @NotNull String label, @NotNull String[] args) {
+        if (args.length == 0 || !args[0].equalsIgnoreCase("stats")) {
+            return false;
+        }
+        sender.sendMessage(Component.text("Discord bridge stats", NamedTextColor.GOLD));
+        metrics.counters().forEach((name, counter) ->
+                sender.sendMessage(Component.text(" " + name + ": " + counter.sum(), NamedTextColor.GRAY)));
+        metrics.gauges().forEach((name, value) ->
+                sender.sendMessage(Component.text(" " + name + ": " + value, NamedTextColor.GRAY)));
+        for (LatencyHistogram histogram : metrics.histograms()) {
+            sender.sendMessage(Component.text(String.format(" %s: n=%d mean=%.2fms p50=%.2fms p99=%.2fms max=%.2fms",
+                    histogram.getName(), histogram.getCount(), histogram.getMeanMillis(),
+                    histogram.getPercentileMillis(50), histogram.getPercentileMillis(99), histogram.getMaxMillis()), NamedTextColor.GRAY));
+        }
+        sender.sendMessage(Component.text(" " + handlerTimings.summary(), NamedTextColor.GRAY));
+        return true;
+    }
+
+    @Override
+    public List<String> onTabComplete(@NotNull CommandSender sender, @NotNull Command command, @NotNull String label, @NotNull String[] args) {
+        return args.length == 1 ? List.of("stats") : List.of();
+    }
+}
@@ -0,0 +1,87 @@
+package com.garfield.chatintegration;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Counters, gauges and latency histograms for the bridge's hot paths.
+ */
+public class BridgeMetrics {
+    public final LatencyHistogram chatToWebhookAck = new LatencyHistogram("chat_to_webhook_ack", "Time from chat event to webhook acknowledgement");
+    public final LatencyHistogram webhookSend = new LatencyHistogram("webhook_send", "Time from enqueue to webhook acknowledgement for any post");
+    public final LatencyHistogram memberLookup = new LatencyHistogram("member_lookup", "Time spent in getDiscordMemberFromUUID");
+    public final LatencyHistogram inboundBroadcast = new LatencyHistogram("inbound_broadcast", "Time from Discord message to in-game broadcast");
+
+    public final LongAdder chatMessages = new LongAdder();
+    public final LongAdder webhookPosts = new LongAdder();
+    public final LongAdder webhookMessages = new LongAdder();
+    public final LongAdder webhookFailures = new LongAdder();
+    public final LongAdder webhookRateLimits = new LongAdder();
+    public final LongAdder outboundDropped = new LongAdder();
+    public final LongAdder inboundMessages = new LongAdder();
+    public final LongAdder inboundDropped = new LongAdder();
+    public final LongAdder floodDropped = new LongAdder();
+    public final LongAdder floodDelayed = new LongAdder();
+    public final LongAdder floodCollapsed = new LongAdder();
+    public final LongAdder systemDeduplicated = new LongAdder();
+
+    private final Map<String, LongSupplier> gauges = new LinkedHashMap<>();
+
+    public List<LatencyHistogram> histograms() {
+        return List.of(chatToWebhookAck, webhookSend, memberLookup, inboundBroadcast);
+    }
+
+    public Map<String, LongAdder> counters() {
+        Map<String, LongAdder> counters = new LinkedHashMap<>();
+        counters.put("chat_messages", chatMessages);
+        counters.put("webhook_posts", webhookPosts);
+        counters.put("webhook_messages", webhookMessages);
+        counters.put("webhook_failures", webhookFailures);
+        counters.put("webhook_rate_limits", webhookRateLimits);
+        counters.put("outbound_dropped", outboundDropped);
+        counters.put("inbound_messages", inboundMessages);
+        counters.put("inbound_dropped", inboundDropped);
+        counters.put("flood_dropped", floodDropped);
+        counters.put("flood_delayed", floodDelayed);
+        counters.put("flood_collapsed", floodCollapsed);
+        counters.put("system_deduplicated", systemDeduplicated);
+        return counters;
+    }
+
+    public synchronized void registerGauge(String name, LongSupplier supplier) {
+        gauges.put(name, supplier);
+    }
+
+    public synchronized Map<String, Long> gauges() {
+        Map<String, Long> values = new LinkedHashMap<>();
+        gauges.forEach((name, supplier) -> values.put(name, supplier.getAsLong()));
+        return values;
+    }
+
+    public String toPrometheus() {
+        StringBuilder out = new StringBuilder(2048);
+        counters().forEach((name, counter) -> {
+            out.append("# TYPE chatintegration_").append(name).append("_total counter\n");
+            out.append("chatintegration_").append(name).append("_total ").append(counter.sum()).append('\n');
+        });
+        gauges().forEach((name, value) -> {
+            out.append("# TYPE chatintegration_").append(name).append(" gauge\n");
+            out.append("chatintegration_").append(name).append(' ').append(value).append('\n');
+        });
+        for (LatencyHistogram histogram : histograms()) {
+            String metric = "chatintegration_" + histogram.getName() + "_seconds";
+            out.append("# HELP ").append(metric).append(' ').append(histogram.getHelp()).append('\n');
+            out.append("# TYPE ").append(metric).append(" summary\n");
+            for (double quantile : new double[]{0.5, 0.9, 0.99}) {
+                out.append(metric).append("{quantile=\"").append(quantile).append("\"} ")
+                        .append(histogram.getPercentileMillis(quantile * 100) / 1000.0).append('\n');
+            }
+            out.append(metric).append("_sum ").append(histogram.getTotalSeconds()).append('\n');
+            out.append(metric).append("_count ").append(histogram.getCount()).append('\n');
+        }
+        return out.toString();
+    }
+}
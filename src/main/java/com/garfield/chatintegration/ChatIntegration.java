@@ -2,22 +2,88 @@ package com.garfield.chatintegration;
 
 import org.bukkit.plugin.java.JavaPlugin;
 
+import java.io.IOException;
+import java.util.Objects;
+import java.util.UUID;
+
 public class ChatIntegration extends JavaPlugin {
+    private BridgeExecutor bridgeExecutor;
+    private BridgeMetrics bridgeMetrics;
     private DiscordListener discordListener;
+    private HandlerTimings handlerTimings;
+    private PrometheusExporter prometheusExporter;
 
     @Override
     public void onEnable() {
         saveDefaultConfig();
-        this.discordListener = new DiscordListener(this);
-        getServer().getPluginManager().registerEvents(new ChatListener(this.discordListener), this);
-        discordListener.sendMessageToWebhook("Server is starting", "System", discordListener.jda.getSelfUser().getAvatarUrl());
+        this.bridgeExecutor = new BridgeExecutor(getLogger());
+        this.bridgeMetrics = new BridgeMetrics();
+        this.handlerTimings = new HandlerTimings();
+        this.discordListener = new DiscordListener(this, bridgeExecutor, bridgeMetrics);
+        bridgeMetrics.registerGauge("webhook_queue_depth", () -> discordListener.getWebhookPipeline().getQueueDepth());
+        bridgeMetrics.registerGauge("inbound_queue_depth", () -> discordListener.getInboundBroadcaster().getQueueDepth());
+        bridgeMetrics.registerGauge("spool_pending", () -> discordListener.getWebhookPipeline().getSpooledCount());
+        bridgeMetrics.registerGauge("spool_disk_bytes", () -> discordListener.getWebhookPipeline().getSpoolDiskBytes());
+        bridgeMetrics.registerGauge("spool_discarded", () -> discordListener.getWebhookPipeline().getSpoolDiscarded());
+        WorldSeedCache worldSeeds = new WorldSeedCache(this);
+        getServer().getPluginManager().registerEvents(worldSeeds, this);
+        getServer().getPluginManager().registerEvents(discordListener.getOnlinePlayers(), this);
+        FloodControl<UUID> outboundFlood = new FloodControl<>(this, bridgeExecutor, bridgeMetrics, "flood.outbound");
+        outboundFlood.start();
+        getServer().getPluginManager().registerEvents(new ChatListener(this, this.discordListener, worldSeeds, outboundFlood, this.handlerTimings, this.bridgeMetrics), this);
+        BridgeCommand bridgeCommand = new BridgeCommand(bridgeMetrics, handlerTimings);
+        Objects.requireNonNull(getCommand("bridge")).setExecutor(bridgeCommand);
+        Objects.requireNonNull(getCommand("bridge")).setTabCompleter(bridgeCommand);
+        LinkCommand linkCommand = new LinkCommand(discordListener);
+        Objects.requireNonNull(getCommand("link")).setExecutor(linkCommand);
+        Objects.requireNonNull(getCommand("link")).setTabCompleter(linkCommand);
+        startPrometheusExporter();
+        discordListener.sendSystemMessage("Server is starting", WebhookPipeline.Kind.STATUS);
+        discordListener.start().exceptionally(error -> {
+            getLogger().severe("Discord bridge failed to start: " + error.getMessage());
+            return null;
+        });
+    }
+
+    private void startPrometheusExporter() {
+        if (!getConfig().getBoolean("metrics.prometheus.enabled", false)) {
+            return;
+        }
+        String host = getConfig().getString("metrics.prometheus.host", "127.0.0.1");
+        int port = getConfig().getInt("metrics.prometheus.port", 9464);
+        try {
+            this.prometheusExporter = new PrometheusExporter(bridgeMetrics, host, port, bridgeExecutor);
+        } catch (IOException e) {
+            getLogger().warning("Failed to start Prometheus endpoint on " + host + ":" + port + ": " + e.getMessage());
+        }
     }
 
     @Override
     public void onDisable() {
         if (discordListener != null) {
-            discordListener.sendMessageToWebhook("Server is stopping", "System", discordListener.jda.getSelfUser().getAvatarUrl());
+            discordListener.sendSystemMessage("Server is stopping", WebhookPipeline.Kind.STATUS);
             discordListener.shutdown();
         }
+        if (prometheusExporter != null) {
+            prometheusExporter.stop();
+        }
+        if (bridgeExecutor != null) {
+            bridgeExecutor.shutdown(getConfig().getLong("webhook.shutdownTimeoutMillis", 5000));
+        }
+        if (handlerTimings != null) {
+            getLogger().info(handlerTimings.summary());
+        }
+    }
+
+    public HandlerTimings getHandlerTimings() {
+        return handlerTimings;
+    }
+
+    public BridgeMetrics getBridgeMetrics() {
+        return bridgeMetrics;
+    }
+
+    public DiscordListener getDiscordListener() {
+        return discordListener;
     }
 }
@@ -1,51 +1,251 @@
 package com.garfield.chatintegration;
 import club.minnced.discord.webhook.WebhookClient;
-import club.minnced.discord.webhook.send.AllowedMentions;
+import club.minnced.discord.webhook.WebhookClientBuilder;
 import club.minnced.discord.webhook.send.WebhookEmbed;
-import club.minnced.discord.webhook.send.WebhookEmbedBuilder;
-import club.minnced.discord.webhook.send.WebhookMessageBuilder;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.JDABuilder;
 import net.dv8tion.jda.api.entities.*;
 import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
+import net.dv8tion.jda.api.entities.channel.middleman.GuildChannel;
+import net.dv8tion.jda.api.events.guild.member.GuildMemberJoinEvent;
+import net.dv8tion.jda.api.events.guild.member.GuildMemberRemoveEvent;
+import net.dv8tion.jda.api.events.guild.member.update.GuildMemberUpdateEvent;
+import net.dv8tion.jda.api.events.guild.member.update.GuildMemberUpdateNicknameEvent;
 import net.dv8tion.jda.api.exceptions.ErrorResponseException;
 import net.dv8tion.jda.api.hooks.ListenerAdapter;
 import net.dv8tion.jda.api.requests.GatewayIntent;
+import net.dv8tion.jda.api.requests.RestConfig;
+import net.dv8tion.jda.api.utils.ChunkingFilter;
+import net.dv8tion.jda.api.utils.MemberCachePolicy;
 import net.dv8tion.jda.api.utils.cache.CacheFlag;
-import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
 import net.kyori.adventure.text.Component;
-import net.kyori.adventure.text.event.ClickEvent;
-import net.kyori.adventure.text.event.HoverEvent;
 import net.kyori.adventure.text.format.NamedTextColor;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import net.dv8tion.jda.api.interactions.commands.OptionType;
+import net.dv8tion.jda.api.interactions.commands.build.Commands;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.entity.Player;
 
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 public class DiscordListener extends ListenerAdapter {
-    public JDA jda;
-    private final TextChannel textChannel;
-    private final WebhookClient webhookClient;
-    private final ChatIntegration plugin;
-    private final JsonObject playersMap;
+    public enum Mode {
+        STANDALONE,
+        HUB,
+        RELAY
+    }
+
+    /**
+     * How much of the guild JDA keeps in memory. FULL is the old default build, LINKED caches only
+     * members linked in discord.json, and MINIMAL drops the GUILD_MEMBERS intent and relies on
+     * {@link MemberCache} loading linked members over REST when they are first needed.
+     */
+    public enum Footprint {
+        FULL,
+        LINKED,
+        MINIMAL
+    }
 
-    public DiscordListener(ChatIntegration plugin) {
+    private static final int REPLY_SUMMARY_LENGTH = 60;
+    private static final int LIST_REPLY_LENGTH = 1900;
+
+    public volatile JDA jda;
+    private volatile TextChannel textChannel;
+    private volatile WebhookClient webhookClient;
+    private final WebhookPipeline webhookPipeline;
+    private final ChatIntegration plugin;
+    private final BridgeExecutor executor;
+    private final BridgeMetrics metrics;
+    private final LinkStore linkStore;
+    private final OnlinePlayers onlinePlayers;
+    private final DiscordStatus status;
+    private final MemberCache memberCache;
+    private final UserCacheIndex userCache;
+    private final InboundBroadcaster inboundBroadcaster;
+    private final FloodControl<Long> inboundFlood;
+    private final FloodControl.Deduplicator systemDeduplicator;
+    private volatile boolean closed;
+    private final Mode mode;
+    private final Footprint footprint;
+    private final HttpUrl apiBaseUrl;
+    private final Map<String, Long> routes = new HashMap<>();
+    private final Map<Long, String> routedThreads = new HashMap<>();
+    private volatile HubServer hubServer;
+    private final HubClient hubClient;
+
+    public DiscordListener(ChatIntegration plugin, BridgeExecutor executor, BridgeMetrics metrics) {
         this.plugin = plugin;
-        this.jda = setupJDA();
-        this.textChannel = setupTextChannel();
-        this.webhookClient = setupWebhookClient();
-        this.playersMap = loadPlayersMap();
+        this.executor = executor;
+        this.metrics = metrics;
+        this.memberCache = new MemberCache(plugin);
+        this.linkStore = new LinkStore(plugin, executor);
+        this.linkStore.addListener(this::onLinkChanged);
+        this.onlinePlayers = new OnlinePlayers(plugin, linkStore);
+        this.status = new DiscordStatus(plugin, executor, onlinePlayers, this::setPresence, this::setChannelTopic);
+        this.userCache = new UserCacheIndex(new File(plugin.getServer().getWorldContainer(), "usercache.json"), plugin.getLogger(), executor);
+        this.webhookPipeline = new WebhookPipeline(plugin, executor, metrics, this::getSystemAvatarUrl);
+        this.inboundBroadcaster = new InboundBroadcaster(plugin, metrics);
+        this.inboundBroadcaster.start();
+        this.inboundFlood = new FloodControl<>(plugin, executor, metrics, "flood.inbound");
+        this.inboundFlood.start();
+        this.systemDeduplicator = new FloodControl.Deduplicator(plugin.getConfig().getLong("flood.systemDedupMillis", 10000));
+        this.mode = parseMode(plugin.getConfig().getString("mode", "standalone"));
+        this.footprint = parseFootprint(plugin.getConfig().getString("jda.footprint", "linked"));
+        this.apiBaseUrl = parseApiBaseUrl(plugin.getConfig().getString("apiBaseUrl", ""));
+        this.hubClient = (mode == Mode.RELAY) ? new HubClient(plugin, inboundBroadcaster, metrics) : null;
+        ConfigurationSection routeSection = plugin.getConfig().getConfigurationSection("hub.routes");
+        if (routeSection != null) {
+            for (String serverId : routeSection.getKeys(false)) {
+                long threadId = routeSection.getLong(serverId);
+                routes.put(serverId, threadId);
+                routedThreads.put(threadId, serverId);
+            }
+        }
+    }
+
+    private Mode parseMode(String value) {
+        try {
+            return Mode.valueOf(value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            plugin.getLogger().warning("Unknown mode '" + value + "', using standalone");
+            return Mode.STANDALONE;
+        }
+    }
+
+    private Footprint parseFootprint(String value) {
+        try {
+            return Footprint.valueOf(value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            plugin.getLogger().warning("Unknown jda.footprint '" + value + "', using linked");
+            return Footprint.LINKED;
+        }
+    }
+
+    /**
+     * Discord API root to use instead of discord.com, for running against a local stub; null when
+     * unset. JDA also learns its gateway address from this API, so the stub serves that too.
+     */
+    private HttpUrl parseApiBaseUrl(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        HttpUrl url = HttpUrl.parse(value.endsWith("/") ? value : value + "/");
+        if (url == null) {
+            plugin.getLogger().warning("Invalid apiBaseUrl '" + value + "', using Discord");
+            return null;
+        }
+        plugin.getLogger().warning("Using Discord API at " + url + " instead of discord.com");
+        return url;
     }
 
+    public CompletableFuture<Void> start() {
+        return CompletableFuture.runAsync(() -> {
+            this.linkStore.load();
+            this.linkStore.startWatching();
+            this.userCache.reload();
+            if (mode == Mode.RELAY) {
+                startRelay();
+                return;
+            }
+            JDA ready = setupJDA();
+            if (ready == null) {
+                return;
+            }
+            synchronized (this) {
+                if (closed) {
+                    ready.shutdown();
+                    return;
+                }
+                this.jda = ready;
+            }
+            this.textChannel = setupTextChannel();
+            if (textChannel == null) {
+                plugin.getLogger().severe("Discord channel " + plugin.getConfig().getString("channelId") + " not found");
+                return;
+            }
+            this.webhookClient = setupWebhookClient();
+            if (webhookClient != null) {
+                webhookPipeline.start(webhookClient, executor.getThreadFactory());
+            } else {
+                plugin.getLogger().warning("No Discord webhook available, outbound messages are held until the next start");
+            }
+            prewarmMemberCache();
+            registerSlashCommands();
+            status.start();
+            if (mode == Mode.HUB) {
+                startHub();
+            }
+        }, executor);
+    }
 
+    private void startRelay() {
+        metrics.registerGauge("hub_unacknowledged", hubClient::getUnacknowledged);
+        onlinePlayers.addListener(this::reportPlayers);
+        reportPlayers();
+        executor.execute(() -> hubClient.run(executor));
+    }
+
+    private void reportPlayers() {
+        hubClient.sendPlayers(onlinePlayers.getMaxPlayers(), onlinePlayers.getLocalPlayers());
+    }
+
+    private void startHub() {
+        String host = plugin.getConfig().getString("hub.host", "127.0.0.1");
+        int port = plugin.getConfig().getInt("hub.port", 25580);
+        try {
+            this.hubServer = new HubServer(this, executor, plugin.getLogger(), host, port, plugin.getConfig().getString("hub.secret", ""));
+        } catch (IOException e) {
+            plugin.getLogger().severe("Failed to start Discord hub on " + host + ":" + port + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Hands a relayed message to the webhook pipeline, returning false if the pipeline rejected it.
+     * Relays have no guild, so a linked sender's Discord name and avatar are resolved here.
+     */
+    boolean submitFromRelay(String serverId, HubProtocol.Outbound outbound) {
+        String username = outbound.username();
+        String avatarUrl = (outbound.avatarUrl() == null && outbound.kind().isSystem()) ? getSystemAvatarUrl() : outbound.avatarUrl();
+        Member member = (outbound.playerId() != null) ? getDiscordMemberFromUUID(outbound.playerId()) : null;
+        if (member != null) {
+            username = member.getEffectiveName();
+            avatarUrl = getAvatarUrl(member);
+        }
+        return webhookPipeline.submit(outbound.content(), outbound.embed(), username, avatarUrl, outbound.kind(), routes.getOrDefault(serverId, 0L));
+    }
 
     private JDA setupJDA() {
         try {
-            JDA jda = JDABuilder.createDefault(plugin.getConfig().getString("token"),
+            long start = System.nanoTime();
+            JDABuilder builder = createBuilder(plugin.getConfig().getString("token"))
+                    .addEventListeners(this);
+            if (apiBaseUrl != null) {
+                builder.setRestConfig(new RestConfig().setBaseUrl(apiBaseUrl.toString()));
+            }
+            JDA jda = builder.build();
+            jda.awaitReady();
+            long connectMillis = (System.nanoTime() - start) / 1_000_000L;
+            long cachedMembers = jda.getGuilds().stream().mapToLong(guild -> guild.getMemberCache().size()).sum();
+            plugin.getLogger().info("Connected to Discord in " + connectMillis + " ms (" + footprint.name().toLowerCase() + " footprint, "
+                    + cachedMembers + " members and " + jda.getUserCache().size() + " users cached)");
+            return jda;
+        } catch (InterruptedException e) {
+            plugin.getLogger().severe("JDA setup failed: " + e.getMessage());
+            return null;
+        }
+    }
+
+
+    private JDABuilder createBuilder(String token) {
+        return switch (footprint) {
+            case FULL -> JDABuilder.createDefault(token,
                             GatewayIntent.GUILD_MESSAGES,
                             GatewayIntent.MESSAGE_CONTENT,
                             GatewayIntent.GUILD_MEMBERS)
@@ -55,18 +255,21 @@ public class DiscordListener extends ListenerAdapter {
                             CacheFlag.EMOJI,
                             CacheFlag.STICKER,
                             CacheFlag.SCHEDULED_EVENTS
-                    )
-                    .addEventListeners(this)
-                    .build();
-            jda.awaitReady();
-            return jda;
-        } catch (InterruptedException e) {
-            plugin.getLogger().severe("JDA setup failed: " + e.getMessage());
-            return null;
-        }
+                    );
+            case LINKED -> JDABuilder.createLight(token,
+                            GatewayIntent.GUILD_MESSAGES,
+                            GatewayIntent.MESSAGE_CONTENT,
+                            GatewayIntent.GUILD_MEMBERS)
+                    .setMemberCachePolicy(member -> linkStore.get().getPlayerId(member.getIdLong()) != null)
+                    .setChunkingFilter(ChunkingFilter.NONE);
+            case MINIMAL -> JDABuilder.createLight(token,
+                            GatewayIntent.GUILD_MESSAGES,
+                            GatewayIntent.MESSAGE_CONTENT)
+                    .setMemberCachePolicy(MemberCachePolicy.NONE)
+                    .setChunkingFilter(ChunkingFilter.NONE);
+        };
     }
 
-
     private TextChannel setupTextChannel() {
         Guild guild = jda.getGuildById(plugin.getConfig().getString("guildId"));
         if (guild != null) {
@@ -76,14 +279,18 @@ public class DiscordListener extends ListenerAdapter {
     }
 
     private WebhookClient setupWebhookClient() {
+        String configuredUrl = plugin.getConfig().getString("webhookUrl");
+        if (configuredUrl != null && !configuredUrl.isBlank()) {
+            return buildWebhookClient(configuredUrl);
+        }
         TextChannel channel = textChannel;
         List<net.dv8tion.jda.api.entities.Webhook> webhooks = channel.retrieveWebhooks().complete();
         if (!webhooks.isEmpty()) {
-            return WebhookClient.withUrl(webhooks.getFirst().getUrl());
+            return buildWebhookClient(webhooks.getFirst().getUrl());
         } else {
             try {
                 net.dv8tion.jda.api.entities.Webhook webhook = channel.createWebhook("Minecraft Server Integration").complete();
-                return WebhookClient.withUrl(webhook.getUrl());
+                return buildWebhookClient(webhook.getUrl());
             } catch (ErrorResponseException e) {
                 e.printStackTrace();
             }
@@ -91,43 +298,188 @@ public class DiscordListener extends ListenerAdapter {
         return null;
     }
 
-    private JsonObject loadPlayersMap() {
-        File playersFile = new File(plugin.getDataFolder(), "discord.json");
-        if (!playersFile.exists()) {
-            plugin.getLogger().warning("discord.json file not found!");
-            return new JsonObject();
+    private WebhookClient buildWebhookClient(String url) {
+        HttpUrl parsed = HttpUrl.parse(url);
+        if (apiBaseUrl == null && parsed != null && isDiscordHost(parsed.host())) {
+            return new WebhookClientBuilder(url)
+                    .setThreadFactory(executor.getThreadFactory())
+                    .build();
         }
-        try (FileReader reader = new FileReader(playersFile)) {
-            return JsonParser.parseReader(reader).getAsJsonObject();
-        } catch (IOException e) {
-            e.printStackTrace();
-            return new JsonObject();
+        // discord-webhooks only accepts discord.com URLs, so take the ID and token from the path and
+        // rewrite each request onto the configured API root, or onto the webhook URL's own origin
+        // when it points somewhere else such as a local stub.
+        List<String> segments = parsed != null ? parsed.pathSegments() : List.of();
+        int webhooks = segments.indexOf("webhooks");
+        if (webhooks < 0 || webhooks + 2 >= segments.size()) {
+            plugin.getLogger().warning("Cannot use webhook URL " + url);
+            return null;
+        }
+        HttpUrl base = apiBaseUrl;
+        if (base == null) {
+            HttpUrl.Builder origin = parsed.newBuilder().query(null).fragment(null).encodedPath("/");
+            for (String segment : segments.subList(0, webhooks)) {
+                origin.addPathSegment(segment);
+            }
+            base = origin.build();
         }
+        HttpUrl target = base;
+        OkHttpClient httpClient = new OkHttpClient.Builder()
+                .addInterceptor(chain -> chain.proceed(rebase(chain.request(), target)))
+                .build();
+        return new WebhookClientBuilder(Long.parseLong(segments.get(webhooks + 1)), segments.get(webhooks + 2))
+                .setThreadFactory(executor.getThreadFactory())
+                .setHttpClient(httpClient)
+                .build();
     }
 
-    private Map<String, String> loadUserCache() {
-        File userCacheFile = new File(plugin.getServer().getWorldContainer(), "usercache.json");
-        Map<String, String> userCache = new HashMap<>();
+    private static boolean isDiscordHost(String host) {
+        return host.equals("discord.com") || host.endsWith(".discord.com")
+                || host.equals("discordapp.com") || host.endsWith(".discordapp.com");
+    }
 
-        if (!userCacheFile.exists()) {
-            plugin.getLogger().warning("usercache.json file not found!");
-            return userCache;
+    private static Request rebase(Request request, HttpUrl base) {
+        List<String> segments = request.url().pathSegments();
+        HttpUrl.Builder url = base.newBuilder().encodedQuery(request.url().encodedQuery());
+        for (int i = Math.max(0, segments.indexOf("webhooks")); i < segments.size(); i++) {
+            url.addPathSegment(segments.get(i));
         }
+        return request.newBuilder().url(url.build()).build();
+    }
+
+    private Guild getGuild() {
+        JDA current = jda;
+        return (current != null) ? current.getGuildById(Objects.requireNonNull(plugin.getConfig().getString("guildId"))) : null;
+    }
 
-        try (FileReader reader = new FileReader(userCacheFile)) {
-            JsonArray userCacheArray = JsonParser.parseReader(reader).getAsJsonArray();
+    private void registerSlashCommands() {
+        Guild guild = getGuild();
+        if (guild == null) {
+            return;
+        }
+        guild.upsertCommand(Commands.slash("link", "Link your Minecraft account")
+                        .addOption(OptionType.STRING, "code", "The code shown by /link in game", true))
+                .queue(null, error -> plugin.getLogger().warning("Failed to register /link: " + error.getMessage()));
+        guild.upsertCommand(Commands.slash("list", "Show who is online in Minecraft"))
+                .queue(null, error -> plugin.getLogger().warning("Failed to register /list: " + error.getMessage()));
+    }
 
-            for (int i = 0; i < userCacheArray.size(); i++) {
-                JsonObject userCacheEntry = userCacheArray.get(i).getAsJsonObject();
-                String uuid = userCacheEntry.get("uuid").getAsString();
-                String name = userCacheEntry.get("name").getAsString();
-                userCache.put(uuid, name);
+    private void setPresence(String text) {
+        JDA current = jda;
+        if (current != null) {
+            current.getPresence().setActivity(Activity.customStatus(text));
+        }
+    }
+
+    private void setChannelTopic(String text) {
+        TextChannel channel = textChannel;
+        if (channel != null) {
+            channel.getManager().setTopic(text)
+                    .queue(null, error -> plugin.getLogger().warning("Failed to update channel topic: " + error.getMessage()));
+        }
+    }
+
+    private void onLinkChanged(UUID playerId, long previousDiscordId, long discordId) {
+        memberCache.invalidate(playerId);
+        if (discordId != 0L) {
+            memberCache.resolve(playerId, discordId, getGuild());
+        }
+    }
+
+    @Override
+    public void onSlashCommandInteraction(SlashCommandInteractionEvent event) {
+        switch (event.getName()) {
+            case "link" -> onLinkCommand(event);
+            case "list" -> onListCommand(event);
+            default -> {
             }
-        } catch (IOException e) {
-            e.printStackTrace();
         }
+    }
+
+    private void onListCommand(SlashCommandInteractionEvent event) {
+        List<OnlinePlayers.Entry> players = onlinePlayers.getPlayers();
+        StringBuilder reply = new StringBuilder(64 + players.size() * 24);
+        reply.append("**").append(players.size()).append('/').append(onlinePlayers.getMaxPlayers()).append(" online**");
+        for (int i = 0; i < players.size(); i++) {
+            if (reply.length() > LIST_REPLY_LENGTH) {
+                reply.append(" and ").append(players.size() - i).append(" more");
+                break;
+            }
+            OnlinePlayers.Entry player = players.get(i);
+            reply.append(i == 0 ? "\n" : ", ");
+            DiscordMarkdownRenderer.appendEscaped(reply, player.name());
+            if (player.discordId() != 0L) {
+                reply.append(" (<@").append(player.discordId()).append(">)");
+            }
+        }
+        event.reply(reply.toString()).setAllowedMentions(EnumSet.noneOf(Message.MentionType.class)).queue();
+    }
+
+    private void onLinkCommand(SlashCommandInteractionEvent event) {
+        String code = event.getOption("code") != null ? event.getOption("code").getAsString() : "";
+        UUID playerId = linkStore.redeemCode(code, event.getUser().getIdLong());
+        if (playerId == null) {
+            event.reply("That code is invalid or has expired. Run /link in game to get a new one.").setEphemeral(true).queue();
+            return;
+        }
+        String name = fetchMinecraftNameFromCache(playerId);
+        event.reply("Linked to Minecraft account " + (name != null ? name : playerId) + ".").setEphemeral(true).queue();
+        String discordName = event.getUser().getEffectiveName();
+        plugin.getServer().getScheduler().runTask(plugin, () -> {
+            Player player = plugin.getServer().getPlayer(playerId);
+            if (player != null) {
+                player.sendMessage(Component.text("Linked to Discord account " + discordName + ".", NamedTextColor.GREEN));
+            }
+        });
+    }
+
+    private void prewarmMemberCache() {
+        Guild guild = getGuild();
+        IdentityIndex identities = linkStore.get();
+        if (guild == null || identities.size() == 0 || footprint == Footprint.MINIMAL) {
+            return;
+        }
+        long[] ids = new long[identities.size()];
+        int[] count = {0};
+        identities.forEach((playerId, discordId) -> ids[count[0]++] = discordId);
+        for (int start = 0; start < count[0]; start += 100) {
+            long[] chunk = Arrays.copyOfRange(ids, start, Math.min(start + 100, count[0]));
+            guild.retrieveMembersByIds(chunk)
+                    .onSuccess(members -> members.forEach(this::refreshCachedMember))
+                    .onError(error -> plugin.getLogger().warning("Failed to prewarm Discord member cache: " + error.getMessage()));
+        }
+    }
+
+    private void refreshCachedMember(Member member) {
+        if (!member.getGuild().getId().equals(plugin.getConfig().getString("guildId"))) {
+            return;
+        }
+        UUID playerId = linkStore.get().getPlayerId(member.getIdLong());
+        if (playerId != null) {
+            memberCache.put(playerId, member);
+        }
+    }
+
+    @Override
+    public void onGuildMemberJoin(GuildMemberJoinEvent event) {
+        refreshCachedMember(event.getMember());
+    }
+
+    @Override
+    public void onGuildMemberUpdate(GuildMemberUpdateEvent event) {
+        refreshCachedMember(event.getMember());
+    }
+
+    @Override
+    public void onGuildMemberUpdateNickname(GuildMemberUpdateNicknameEvent event) {
+        refreshCachedMember(event.getMember());
+    }
 
-        return userCache;
+    @Override
+    public void onGuildMemberRemove(GuildMemberRemoveEvent event) {
+        UUID playerId = linkStore.get().getPlayerId(event.getUser().getIdLong());
+        if (playerId != null) {
+            memberCache.invalidate(playerId);
+        }
     }
 
     @Override
@@ -136,7 +488,8 @@ public class DiscordListener extends ListenerAdapter {
             return;
         }
 
-        if (!event.getChannel().getId().equals(plugin.getConfig().getString("channelId"))) {
+        String routedServer = routedThreads.get(event.getChannel().getIdLong());
+        if (routedServer == null && !event.getChannel().getId().equals(plugin.getConfig().getString("channelId"))) {
             return;
         }
 
@@ -145,46 +498,83 @@ public class DiscordListener extends ListenerAdapter {
         }
 
         User author = event.getAuthor();
-        String discordId = author.getId();
-        String playerId = null;
-        for (String key : playersMap.keySet()) {
-            if (playersMap.get(key).getAsString().equals(discordId)) {
-                playerId = key;
-                break;
-            }
-        }
-
+        UUID playerId = linkStore.get().getPlayerId(author.getIdLong());
 
         if(playerId != null) {
-            String messageContent = event.getMessage().getContentDisplay();
-            Component message;
+            if (event.getMember() != null) {
+                memberCache.put(playerId, event.getMember());
+            }
+            Message message = event.getMessage();
+            String messageContent = message.getContentRaw();
 
             String minecraftName = getMinecraftName(playerId);
             if (minecraftName != null) {
-
-                Component namePrefix = Component.text(String.format("<%s> ", minecraftName), NamedTextColor.BLUE).hoverEvent(HoverEvent.showText(Component.text(event.getMember().getEffectiveName())));
-
-                if (!event.getMessage().getAttachments().isEmpty()) {
-                    for (Message.Attachment attachment : event.getMessage().getAttachments()) {
-                        String fileUrl = attachment.getUrl();
-                        String fileName = attachment.getFileName();
-                        Component messageToSend = namePrefix
-                                .append(Component.text("[" + fileName + "]", NamedTextColor.AQUA)
-                                        .clickEvent(ClickEvent.openUrl(fileUrl))
-                                        .hoverEvent(HoverEvent.showText(Component.text("Open in your browser"))));
-                        plugin.getServer().broadcast(messageToSend);
-                    }
+                List<InboundBroadcaster.Attachment> attachments = new ArrayList<>(message.getAttachments().size());
+                for (Message.Attachment attachment : message.getAttachments()) {
+                    attachments.add(new InboundBroadcaster.Attachment(attachment.getFileName(), attachment.getUrl()));
                 }
-                if(messageContent.isEmpty()) return;
-                message = namePrefix.append(Component.text(messageContent, NamedTextColor.WHITE));
-                plugin.getServer().broadcast(message);
+                if (attachments.isEmpty() && messageContent.isEmpty()) return;
+                String discordName = (event.getMember() != null) ? event.getMember().getEffectiveName() : author.getEffectiveName();
+                Map<Long, String> mentions = mentionNames(message);
+                InboundBroadcaster.InboundMessage inbound = new InboundBroadcaster.InboundMessage(author.getIdLong(), minecraftName, discordName,
+                        messageContent, mentions, replySummary(message), attachments, System.nanoTime());
+                inboundFlood.submit(author.getIdLong(), messageContent, repeats -> dispatchInbound(repeats == 0 ? inbound
+                        : new InboundBroadcaster.InboundMessage(inbound.discordId(), minecraftName, discordName,
+                                messageContent + " (x" + repeats + ")", mentions, null, List.of(), System.nanoTime()), routedServer));
             } else {
                 plugin.getLogger().warning("Failed to fetch Minecraft name for player with Discord ID: " + playerId);
             }
         }
     }
 
-    public String getMinecraftName(String playerId) {
+    /**
+     * Display names for everything the raw content mentions, so the markdown parser can render
+     * {@code <@id>}, {@code <@&id>} and {@code <#id>} without touching JDA.
+     */
+    private static Map<Long, String> mentionNames(Message message) {
+        Mentions mentions = message.getMentions();
+        Map<Long, String> names = new HashMap<>();
+        for (User user : mentions.getUsers()) {
+            names.put(user.getIdLong(), user.getEffectiveName());
+        }
+        for (Member member : mentions.getMembers()) {
+            names.put(member.getIdLong(), member.getEffectiveName());
+        }
+        for (Role role : mentions.getRoles()) {
+            names.put(role.getIdLong(), role.getName());
+        }
+        for (GuildChannel channel : mentions.getChannels()) {
+            names.put(channel.getIdLong(), channel.getName());
+        }
+        return names.isEmpty() ? Map.of() : names;
+    }
+
+    private static String replySummary(Message message) {
+        Message referenced = message.getReferencedMessage();
+        if (referenced == null) {
+            return null;
+        }
+        String name = referenced.getMember() != null ? referenced.getMember().getEffectiveName() : referenced.getAuthor().getEffectiveName();
+        String text = referenced.getContentDisplay().replace('\n', ' ');
+        if (text.length() > REPLY_SUMMARY_LENGTH) {
+            text = text.substring(0, REPLY_SUMMARY_LENGTH - 1) + "\u2026";
+        } else if (text.isEmpty() && !referenced.getAttachments().isEmpty()) {
+            text = "[attachment]";
+        }
+        return name + ": " + text;
+    }
+
+    private void dispatchInbound(InboundBroadcaster.InboundMessage inbound, String routedServer) {
+        if (routedServer == null || routedServer.equals(plugin.getConfig().getString("hub.serverId"))) {
+            inboundBroadcaster.enqueue(inbound);
+        }
+        HubServer hub = hubServer;
+        if (hub != null) {
+            hub.broadcastInbound(inbound, routedServer);
+        }
+    }
+
+    public String getMinecraftName(UUID playerId) {
         Member member = getDiscordMemberFromUUID(playerId);
         if (member == null) {
             return fetchMinecraftNameFromCache(playerId);
@@ -192,24 +582,36 @@ public class DiscordListener extends ListenerAdapter {
         return member.getEffectiveName();
     }
 
-    public Member getDiscordMemberFromUUID(String playerId) {
-        if (playersMap.has(playerId)) {
-            String discordId = playersMap.get(playerId).getAsString();
-            try {
-                User user = jda.retrieveUserById(discordId).complete();
-                Guild guild = jda.getGuildById(Objects.requireNonNull(plugin.getConfig().getString("guildId")));
-                return (guild != null) ? guild.retrieveMember(user).complete() : null;
-            } catch (Exception e) {
-                plugin.getLogger().warning("Failed to fetch Discord member for UUID: " + playerId + ". Error: " + e.getMessage());
+    public Member getDiscordMemberFromUUID(UUID playerId) {
+        long start = System.nanoTime();
+        try {
+            if (!linkStore.get().contains(playerId)) {
+                return null;
             }
+            if (memberCache.needsRefresh(playerId)) {
+                resolveDiscordMember(playerId);
+            }
+            return memberCache.getIfPresent(playerId);
+        } finally {
+            metrics.memberLookup.recordSince(start);
         }
-        return null;
     }
 
-    public String getDiscordIdFromUUID(String playerId) {
-        if (playersMap.has(playerId)) {
-            return playersMap.get(playerId).getAsString();
-        } else return null;
+    public CompletableFuture<Member> resolveDiscordMember(UUID playerId) {
+        long discordId = linkStore.get().getDiscordId(playerId);
+        if (discordId == 0L) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return memberCache.resolve(playerId, discordId, getGuild());
+    }
+
+    public long getLinkedDiscordId(UUID playerId) {
+        return linkStore.get().getDiscordId(playerId);
+    }
+
+    public String getDiscordIdFromUUID(UUID playerId) {
+        long discordId = linkStore.get().getDiscordId(playerId);
+        return (discordId != 0L) ? Long.toString(discordId) : null;
     }
 
     public String getAvatarUrl(Member user) {
@@ -225,41 +627,97 @@ public class DiscordListener extends ListenerAdapter {
     }
 
 
-    private String fetchMinecraftNameFromCache(String uuid) {
-        Map<String, String> userCache = loadUserCache();
-        return userCache.get(uuid);
+    private String fetchMinecraftNameFromCache(UUID uuid) {
+        return userCache.getName(uuid);
+    }
+
+    public void rememberPlayerName(UUID playerId, String name) {
+        userCache.put(playerId, name);
+    }
+
+    public String getSystemAvatarUrl() {
+        JDA current = jda;
+        return (current != null) ? current.getSelfUser().getAvatarUrl() : null;
+    }
+
+    public void sendSystemMessage(String message, WebhookPipeline.Kind kind) {
+        sendSystemMessage(kind, message, kind);
+    }
+
+    /**
+     * Sends a system line about {@code subject}, usually a player's UUID, dropping it if the same line
+     * was already sent for that subject within the dedup window.
+     */
+    public void sendSystemMessage(Object subject, String message, WebhookPipeline.Kind kind) {
+        if (systemDeduplicator.isDuplicate(subject, message)) {
+            metrics.systemDeduplicated.increment();
+            return;
+        }
+        sendMessageToWebhook(message, "System", getSystemAvatarUrl(), kind);
     }
 
     public void sendMessageToWebhook(Object message, String username, String avatarUrl) {
-        if (webhookClient != null) {
-            WebhookMessageBuilder builder = new WebhookMessageBuilder()
-                    .setAllowedMentions(AllowedMentions.none())
-                    .setUsername(username)
-                    .setAvatarUrl(avatarUrl);
+        sendMessageToWebhook(message, username, avatarUrl, WebhookPipeline.Kind.CHAT);
+    }
+
+    public void sendMessageToWebhook(Object message, String username, String avatarUrl, WebhookPipeline.Kind kind) {
+        sendMessageToWebhook(message, null, username, avatarUrl, kind);
+    }
 
+    /**
+     * Sends a line on behalf of {@code playerId}; in relay mode the hub uses it to show the player's
+     * linked Discord member instead of {@code username} and {@code avatarUrl}.
+     */
+    public void sendMessageToWebhook(Object message, UUID playerId, String username, String avatarUrl, WebhookPipeline.Kind kind) {
+        if (hubClient != null) {
             if (message instanceof String) {
-                builder.setContent((String) message);
-            } else if (message instanceof MessageEmbed) {
-                MessageEmbed jdaEmbed = (MessageEmbed) message;
-                WebhookEmbedBuilder embedBuilder = new WebhookEmbedBuilder()
-                        .setTitle(new WebhookEmbed.EmbedTitle(jdaEmbed.getTitle(), null))
-                        .setDescription(jdaEmbed.getDescription())
-                        .setColor(jdaEmbed.getColorRaw())
-                        .setFooter(new WebhookEmbed.EmbedFooter(jdaEmbed.getFooter().getText(), null));
-
-                jdaEmbed.getFields().forEach(field ->
-                        embedBuilder.addField(new WebhookEmbed.EmbedField(false, field.getName(), field.getValue()))
-                );
-
-                builder.addEmbeds(embedBuilder.build());
+                hubClient.sendOutbound((String) message, null, username, avatarUrl, kind, playerId);
+            } else if (message instanceof WebhookEmbed) {
+                hubClient.sendOutbound(null, (WebhookEmbed) message, username, avatarUrl, kind, playerId);
             }
-
-            webhookClient.send(builder.build());
+            return;
+        }
+        if (message instanceof String) {
+            webhookPipeline.submit((String) message, null, username, avatarUrl, kind);
+        } else if (message instanceof WebhookEmbed) {
+            webhookPipeline.submit(null, (WebhookEmbed) message, username, avatarUrl, kind);
         }
     }
 
+    public WebhookPipeline getWebhookPipeline() {
+        return webhookPipeline;
+    }
+
+    public InboundBroadcaster getInboundBroadcaster() {
+        return inboundBroadcaster;
+    }
+
+    public OnlinePlayers getOnlinePlayers() {
+        return onlinePlayers;
+    }
+
+    public LinkStore getLinkStore() {
+        return linkStore;
+    }
+
+    public boolean canLink() {
+        return mode != Mode.RELAY;
+    }
+
 
     public synchronized void shutdown() {
+        closed = true;
+        inboundBroadcaster.stop();
+        long timeout = plugin.getConfig().getLong("webhook.shutdownTimeoutMillis", 5000);
+        if (hubClient != null) {
+            hubClient.close(timeout);
+        }
+        if (hubServer != null) {
+            hubServer.close();
+        }
+        webhookPipeline.close(timeout);
+        linkStore.close();
+
         if (jda != null) {
             jda.shutdown();
             jda = null;
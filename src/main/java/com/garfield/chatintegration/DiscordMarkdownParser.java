@@ -0,0 +1,387 @@
+package com.garfield.chatintegration;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.event.ClickEvent;
+import net.kyori.adventure.text.event.HoverEvent;
+import net.kyori.adventure.text.format.NamedTextColor;
+import net.kyori.adventure.text.format.Style;
+import net.kyori.adventure.text.format.TextDecoration;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Turns Discord message markdown into styled Adventure components in a single left-to-right scan.
+ * Emphasis, spoilers, code, quotes, headings, links, mentions, custom emoji and timestamps are
+ * understood; anything unmatched stays literal text. Input is truncated to a fixed length and
+ * nesting stops at a fixed depth, and rendered mention, emoji and timestamp fragments are kept in
+ * a small LRU cache since the same few recur constantly.
+ */
+public final class DiscordMarkdownParser {
+    private static final int CACHE_SIZE = 256;
+    private static final int MAX_TOKEN_LENGTH = 80;
+    private static final Style BASE = Style.style(NamedTextColor.WHITE);
+    private static final Style CODE = Style.style(NamedTextColor.GRAY);
+    private static final Component SPOILER = Component.text("[spoiler]", NamedTextColor.DARK_GRAY);
+    private static final Component QUOTE = Component.text("| ", NamedTextColor.DARK_GRAY);
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm 'UTC'").withZone(ZoneOffset.UTC);
+
+    private final int maxLength;
+    private final int maxDepth;
+    private final Map<String, Component> fragments = new LinkedHashMap<>(CACHE_SIZE * 2, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Component> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    public DiscordMarkdownParser(int maxLength, int maxDepth) {
+        this.maxLength = Math.max(1, maxLength);
+        this.maxDepth = Math.max(0, maxDepth);
+    }
+
+    /**
+     * Output of one parse: finished components plus the literal run still being collected.
+     */
+    private static final class Run {
+        final String text;
+        final Map<Long, String> mentions;
+        final List<Component> out = new ArrayList<>();
+        final StringBuilder literal = new StringBuilder();
+        final Map<String, Integer> absentFrom = new HashMap<>();
+        Style literalStyle;
+
+        Run(String text, Map<Long, String> mentions) {
+            this.text = text;
+            this.mentions = mentions;
+        }
+
+        /**
+         * Finds {@code delimiter} between {@code from} and {@code end}, remembering where a search
+         * came up empty so unmatched delimiters cost one scan in total rather than one each.
+         */
+        int find(String delimiter, int from, int end) {
+            Integer absent = absentFrom.get(delimiter);
+            if (absent != null && from >= absent) {
+                return -1;
+            }
+            int index = text.indexOf(delimiter, from);
+            if (index < 0) {
+                absentFrom.put(delimiter, from);
+                return -1;
+            }
+            return index + delimiter.length() <= end ? index : -1;
+        }
+
+        void literal(Style style, CharSequence text, int start, int end) {
+            if (start >= end) {
+                return;
+            }
+            if (literalStyle != style) {
+                flush();
+                literalStyle = style;
+            }
+            literal.append(text, start, end);
+        }
+
+        void component(Component component) {
+            flush();
+            out.add(component);
+        }
+
+        void flush() {
+            if (!literal.isEmpty()) {
+                out.add(Component.text(literal.toString(), literalStyle));
+                literal.setLength(0);
+            }
+        }
+    }
+
+    public Component parse(String content, Map<Long, String> mentions) {
+        boolean truncated = content.length() > maxLength;
+        Run run = new Run(truncated ? content.substring(0, maxLength) : content, mentions);
+        parse(run, 0, run.text.length(), BASE, 0);
+        if (truncated) {
+            run.literal(CODE, "\u2026", 0, 1);
+        }
+        run.flush();
+        return run.out.size() == 1 ? run.out.get(0) : Component.text().append(run.out).build();
+    }
+
+    private void parse(Run run, int start, int end, Style style, int depth) {
+        String text = run.text;
+        int i = start;
+        while (i < end) {
+            char c = text.charAt(i);
+            boolean lineStart = i == 0 || text.charAt(i - 1) == '\n';
+            int next = lineStart ? lineSyntax(run, i, end, style, depth) : -1;
+            if (next < 0) {
+                next = inlineSyntax(run, c, i, end, style, depth);
+            }
+            if (next < 0) {
+                run.literal(style, text, i, i + 1);
+                next = i + 1;
+            }
+            i = next;
+        }
+    }
+
+    /**
+     * Handles quotes and headings at the start of a line, returning where parsing continues or -1.
+     */
+    private int lineSyntax(Run run, int i, int end, Style style, int depth) {
+        String text = run.text;
+        if (text.startsWith("> ", i) || text.startsWith(">>> ", i)) {
+            run.component(QUOTE);
+            return i + (text.charAt(i + 1) == '>' ? 4 : 2);
+        }
+        int level = 0;
+        while (level < 3 && i + level < end && text.charAt(i + level) == '#') {
+            level++;
+        }
+        boolean subtext = level == 0 && text.startsWith("-# ", i);
+        if ((level > 0 && text.startsWith(" ", i + level)) || subtext) {
+            int lineEnd = lineEnd(text, i, end);
+            int contentStart = subtext ? i + 3 : i + level + 1;
+            Style lineStyle = subtext ? style.color(NamedTextColor.GRAY) : style.decoration(TextDecoration.BOLD, true);
+            nested(run, contentStart, lineEnd, lineStyle, depth);
+            return lineEnd;
+        }
+        return -1;
+    }
+
+    /**
+     * Handles escapes, code, emphasis, spoilers, links and angle-bracket tokens at {@code i},
+     * returning where parsing continues or -1 if the character is plain text.
+     */
+    private int inlineSyntax(Run run, char c, int i, int end, Style style, int depth) {
+        String text = run.text;
+        switch (c) {
+            case '\\' -> {
+                if (i + 1 < end && isPunctuation(text.charAt(i + 1))) {
+                    run.literal(style, text, i + 1, i + 2);
+                    return i + 2;
+                }
+            }
+            case '`' -> {
+                String fence = text.startsWith("```", i) ? "```" : "`";
+                int close = run.find(fence, i + fence.length(), end);
+                if (close >= 0) {
+                    int codeStart = i + fence.length();
+                    if (fence.length() == 3) {
+                        int newline = text.indexOf('\n', codeStart);
+                        if (newline >= 0 && newline < close && text.substring(codeStart, newline).chars().allMatch(Character::isLetterOrDigit)) {
+                            codeStart = newline + 1;
+                        }
+                    }
+                    run.literal(CODE, text, codeStart, close);
+                    return close + fence.length();
+                }
+            }
+            case '|' -> {
+                if (text.startsWith("||", i)) {
+                    int close = run.find("||", i + 2, end);
+                    if (close > i + 2) {
+                        run.component(SPOILER.hoverEvent(HoverEvent.showText(Component.text(text.substring(i + 2, close)))));
+                        return close + 2;
+                    }
+                }
+            }
+            case '*', '_', '~' -> {
+                return emphasis(run, c, i, end, style, depth);
+            }
+            case '[' -> {
+                return maskedLink(run, i, end, style, depth);
+            }
+            case '<' -> {
+                return token(run, i, end, style);
+            }
+            case 'h' -> {
+                if ((text.startsWith("https://", i) || text.startsWith("http://", i)) && (i == 0 || !Character.isLetterOrDigit(text.charAt(i - 1)))) {
+                    int urlEnd = i;
+                    while (urlEnd < end && !Character.isWhitespace(text.charAt(urlEnd))) {
+                        urlEnd++;
+                    }
+                    while (urlEnd > i && ".,!?:;)\"'".indexOf(text.charAt(urlEnd - 1)) >= 0) {
+                        urlEnd--;
+                    }
+                    String url = text.substring(i, urlEnd);
+                    run.component(link(Component.text(url), url));
+                    return urlEnd;
+                }
+            }
+            default -> {
+            }
+        }
+        return -1;
+    }
+
+    private int emphasis(Run run, char c, int i, int end, Style style, int depth) {
+        String text = run.text;
+        boolean doubled = i + 1 < end && text.charAt(i + 1) == c;
+        if (c == '~' && !doubled) {
+            return -1;
+        }
+        String delimiter = doubled ? String.valueOf(new char[]{c, c}) : String.valueOf(c);
+        if (c == '_' && !doubled && i > 0 && Character.isLetterOrDigit(text.charAt(i - 1))) {
+            return -1;
+        }
+        int close = run.find(delimiter, i + delimiter.length(), end);
+        if (close <= i + delimiter.length()) {
+            return -1;
+        }
+        if (c == '_' && !doubled && close + 1 < end && Character.isLetterOrDigit(text.charAt(close + 1))) {
+            return -1;
+        }
+        TextDecoration decoration = switch (delimiter) {
+            case "**" -> TextDecoration.BOLD;
+            case "__" -> TextDecoration.UNDERLINED;
+            case "~~" -> TextDecoration.STRIKETHROUGH;
+            default -> TextDecoration.ITALIC;
+        };
+        nested(run, i + delimiter.length(), close, style.decoration(decoration, true), depth);
+        return close + delimiter.length();
+    }
+
+    private int maskedLink(Run run, int i, int end, Style style, int depth) {
+        String text = run.text;
+        int labelEnd = run.find("]", i + 1, end);
+        if (labelEnd < 0 || labelEnd + 1 >= end || text.charAt(labelEnd + 1) != '(') {
+            return -1;
+        }
+        int urlEnd = run.find(")", labelEnd + 2, end);
+        if (urlEnd < 0) {
+            return -1;
+        }
+        String url = text.substring(labelEnd + 2, urlEnd).trim();
+        if (url.startsWith("<") && url.endsWith(">")) {
+            url = url.substring(1, url.length() - 1);
+        }
+        if (!url.startsWith("https://") && !url.startsWith("http://")) {
+            return -1;
+        }
+        Style linkStyle = style.color(NamedTextColor.AQUA).decoration(TextDecoration.UNDERLINED, true)
+                .clickEvent(ClickEvent.openUrl(url))
+                .hoverEvent(HoverEvent.showText(Component.text(url)));
+        nested(run, i + 1, labelEnd, linkStyle, depth);
+        return urlEnd + 1;
+    }
+
+    /**
+     * Parses {@code <...>} tokens: user, role and channel mentions, custom emoji, timestamps and
+     * embed-suppressed links.
+     */
+    private int token(Run run, int i, int end, Style style) {
+        String text = run.text;
+        int close = run.find(">", i + 1, Math.min(end, i + MAX_TOKEN_LENGTH));
+        if (close < 0) {
+            return -1;
+        }
+        String body = text.substring(i + 1, close);
+        if (body.startsWith("https://") || body.startsWith("http://")) {
+            run.component(link(Component.text(body), body));
+            return close + 1;
+        }
+        Component fragment = fragment(run, body);
+        if (fragment == null) {
+            return -1;
+        }
+        run.component(fragment);
+        return close + 1;
+    }
+
+    private Component fragment(Run run, String body) {
+        String name = null;
+        long id = 0L;
+        if (body.startsWith("@") || body.startsWith("#")) {
+            String digits = body.startsWith("@!") || body.startsWith("@&") ? body.substring(2) : body.substring(1);
+            id = parseId(digits);
+            if (id == 0L) {
+                return null;
+            }
+            name = run.mentions.get(id);
+        }
+        String key = name != null ? body + '\u0000' + name : body;
+        synchronized (fragments) {
+            Component cached = fragments.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        Component fragment = buildFragment(body, id, name);
+        if (fragment != null) {
+            synchronized (fragments) {
+                fragments.put(key, fragment);
+            }
+        }
+        return fragment;
+    }
+
+    private static Component buildFragment(String body, long id, String name) {
+        if (id != 0L) {
+            boolean channel = body.startsWith("#");
+            String label = (channel ? "#" : "@") + (name != null ? name : channel ? "unknown-channel" : "unknown-user");
+            return Component.text(label, NamedTextColor.BLUE);
+        }
+        if (body.startsWith(":") || body.startsWith("a:")) {
+            int nameStart = body.indexOf(':') + 1;
+            int nameEnd = body.indexOf(':', nameStart);
+            if (nameEnd <= nameStart || parseId(body.substring(nameEnd + 1)) == 0L) {
+                return null;
+            }
+            String emoji = ":" + body.substring(nameStart, nameEnd) + ":";
+            return Component.text(emoji, NamedTextColor.YELLOW).hoverEvent(HoverEvent.showText(Component.text("Custom emoji " + emoji)));
+        }
+        if (body.startsWith("t:")) {
+            int formatStart = body.indexOf(':', 2);
+            String seconds = formatStart < 0 ? body.substring(2) : body.substring(2, formatStart);
+            try {
+                return Component.text(TIMESTAMP.format(Instant.ofEpochSecond(Long.parseLong(seconds))), NamedTextColor.GRAY);
+            } catch (RuntimeException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private void nested(Run run, int start, int end, Style style, int depth) {
+        if (depth >= maxDepth) {
+            run.literal(style, run.text, start, end);
+        } else {
+            parse(run, start, end, style, depth + 1);
+        }
+    }
+
+    private static Component link(Component label, String url) {
+        return label.color(NamedTextColor.AQUA)
+                .decorate(TextDecoration.UNDERLINED)
+                .clickEvent(ClickEvent.openUrl(url))
+                .hoverEvent(HoverEvent.showText(Component.text("Open in your browser")));
+    }
+
+    private static int lineEnd(String text, int from, int end) {
+        int newline = text.indexOf('\n', from);
+        return newline < 0 || newline > end ? end : newline;
+    }
+
+    private static long parseId(String digits) {
+        if (digits.isEmpty() || digits.length() > 20) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(digits);
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+
+    private static boolean isPunctuation(char c) {
+        return "\\*_~`|[]()<>#-:@>".indexOf(c) >= 0;
+    }
+}
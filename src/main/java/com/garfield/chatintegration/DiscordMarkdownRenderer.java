@@ -0,0 +1,315 @@
+package com.garfield.chatintegration;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.KeybindComponent;
+import net.kyori.adventure.text.TextComponent;
+import net.kyori.adventure.text.TranslatableComponent;
+import net.kyori.adventure.text.event.ClickEvent;
+import net.kyori.adventure.text.event.HoverEvent;
+import net.kyori.adventure.text.format.TextDecoration;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToLongFunction;
+
+/**
+ * Renders an Adventure component tree straight into Discord markdown in one pass over a caller's
+ * buffer. Decorations become markdown markers, URL click events become masked links, entities
+ * shown on hover are replaced by a mention when the player is linked, translatable components are
+ * expanded through the {@link TranslationStore}, and all text is escaped so players cannot inject
+ * markdown or mentions.
+ */
+public final class DiscordMarkdownRenderer {
+    private static final TextDecoration[] DECORATIONS = {
+            TextDecoration.BOLD,
+            TextDecoration.ITALIC,
+            TextDecoration.UNDERLINED,
+            TextDecoration.STRIKETHROUGH,
+            TextDecoration.OBFUSCATED
+    };
+    private static final String[] MARKERS = {"**", "*", "__", "~~", "||"};
+    private static final int MAX_DEPTH = 64;
+    private static final int FALLBACK_CAPACITY = 256;
+
+    private final TranslationStore translations;
+    private final ToLongFunction<UUID> mentions;
+    private final Map<String, MessageTemplate> fallbacks = new ConcurrentHashMap<>();
+
+    public DiscordMarkdownRenderer(TranslationStore translations, ToLongFunction<UUID> mentions) {
+        this.translations = translations;
+        this.mentions = mentions;
+    }
+
+    /**
+     * Markdown markers currently open in the output, innermost last.
+     */
+    private static final class State {
+        final StringBuilder out;
+        final int[] open = new int[DECORATIONS.length];
+        int openCount;
+        int openMask;
+        boolean inLink;
+
+        State(StringBuilder out) {
+            this.out = out;
+        }
+    }
+
+    public void render(Component component, StringBuilder out) {
+        State state = new State(out);
+        render(component, 0, state, 0);
+        style(state, 0);
+    }
+
+    private void render(Component component, int inherited, State state, int depth) {
+        if (depth > MAX_DEPTH) {
+            return;
+        }
+        int mask = decorations(component, inherited);
+        long mention = mentionFor(component);
+        if (mention != 0L) {
+            style(state, 0);
+            state.out.append("<@").append(mention).append('>');
+            return;
+        }
+        ClickEvent click = component.clickEvent();
+        if (!state.inLink && click != null && click.action() == ClickEvent.Action.OPEN_URL && isWebUrl(click.value())) {
+            style(state, 0);
+            state.inLink = true;
+            int start = state.out.length();
+            state.out.append('[');
+            renderContent(component, mask, state, depth);
+            style(state, 0);
+            if (state.out.length() == start + 1) {
+                state.out.setLength(start);
+            } else {
+                state.out.append("](");
+                appendUrl(state.out, click.value());
+                state.out.append(')');
+            }
+            state.inLink = false;
+            return;
+        }
+        renderContent(component, mask, state, depth);
+    }
+
+    private void renderContent(Component component, int mask, State state, int depth) {
+        if (component instanceof TextComponent text) {
+            write(state, mask, text.content());
+        } else if (component instanceof TranslatableComponent translatable) {
+            renderTranslatable(translatable, mask, state, depth);
+        } else if (component instanceof KeybindComponent keybind) {
+            write(state, mask, keybind.keybind());
+        }
+        for (Component child : component.children()) {
+            render(child, mask, state, depth + 1);
+        }
+    }
+
+    private void renderTranslatable(TranslatableComponent translatable, int mask, State state, int depth) {
+        MessageTemplate template = translations.get(translatable.key());
+        if (template == null) {
+            template = fallbackTemplate(translatable);
+        }
+        List<Component> args = translatable.args();
+        template.accept(new MessageTemplate.Visitor() {
+            @Override
+            public void literal(String text) {
+                write(state, mask, text);
+            }
+
+            @Override
+            public boolean argument(int slot) {
+                if (slot >= args.size()) {
+                    return false;
+                }
+                render(args.get(slot), mask, state, depth + 1);
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Compiles the component's fallback, or its key like the vanilla client does, for keys the store
+     * does not hold. Templates are cached up to a fixed number of distinct texts.
+     */
+    private MessageTemplate fallbackTemplate(TranslatableComponent translatable) {
+        String text = translatable.fallback() != null ? translatable.fallback() : translatable.key();
+        MessageTemplate template = fallbacks.get(text);
+        if (template == null) {
+            template = MessageTemplate.compile(text);
+            if (fallbacks.size() < FALLBACK_CAPACITY) {
+                fallbacks.put(text, template);
+            }
+        }
+        return template;
+    }
+
+    private long mentionFor(Component component) {
+        HoverEvent<?> hover = component.hoverEvent();
+        if (hover != null && hover.value() instanceof HoverEvent.ShowEntity entity) {
+            return mentions.applyAsLong(entity.id());
+        }
+        return 0L;
+    }
+
+    private static int decorations(Component component, int inherited) {
+        int mask = inherited;
+        for (int i = 0; i < DECORATIONS.length; i++) {
+            TextDecoration.State decoration = component.decoration(DECORATIONS[i]);
+            if (decoration == TextDecoration.State.TRUE) {
+                mask |= 1 << i;
+            } else if (decoration == TextDecoration.State.FALSE) {
+                mask &= ~(1 << i);
+            }
+        }
+        return mask;
+    }
+
+    private static void write(State state, int mask, String text) {
+        if (text.isEmpty()) {
+            return;
+        }
+        style(state, mask);
+        appendEscaped(state.out, text);
+    }
+
+    /**
+     * Makes the open markers match {@code mask}, closing only as far down the stack as needed.
+     */
+    private static void style(State state, int mask) {
+        if (state.openMask == mask) {
+            return;
+        }
+        int keep = 0;
+        while (keep < state.openCount && (mask & (1 << state.open[keep])) != 0) {
+            keep++;
+        }
+        while (state.openCount > keep) {
+            int decoration = state.open[--state.openCount];
+            state.out.append(MARKERS[decoration]);
+            state.openMask &= ~(1 << decoration);
+        }
+        for (int i = 0; i < DECORATIONS.length; i++) {
+            if ((mask & (1 << i)) != 0 && (state.openMask & (1 << i)) == 0) {
+                state.out.append(MARKERS[i]);
+                state.open[state.openCount++] = i;
+                state.openMask |= 1 << i;
+            }
+        }
+    }
+
+    private static boolean isWebUrl(String url) {
+        return url.startsWith("https://") || url.startsWith("http://");
+    }
+
+    private static void appendUrl(StringBuilder out, String url) {
+        for (int i = 0; i < url.length(); i++) {
+            char c = url.charAt(i);
+            switch (c) {
+                case '(' -> out.append("%28");
+                case ')' -> out.append("%29");
+                case ' ' -> out.append("%20");
+                default -> out.append(c);
+            }
+        }
+    }
+
+    /**
+     * Appends plain text with Discord markdown and mention syntax escaped and legacy section-sign
+     * formatting codes removed. Links are copied as they are, since Discord would otherwise include
+     * the escaping backslashes in the URL.
+     */
+    public static void appendEscaped(StringBuilder out, CharSequence text) {
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case MessageTemplate.SECTION_SIGN -> {
+                    if (i + 1 < length && MessageTemplate.isFormattingCode(text.charAt(i + 1))) {
+                        i++;
+                        continue;
+                    }
+                }
+                case '\\', '*', '_', '~', '`', '|', '[', ']', '<' -> out.append('\\');
+                case '#', '>', '-' -> {
+                    if (out.isEmpty() || out.charAt(out.length() - 1) == '\n') {
+                        out.append('\\');
+                    }
+                }
+                case '.' -> {
+                    if (i + 1 < length && text.charAt(i + 1) == ' ' && afterLineStartNumber(out)) {
+                        out.append('\\');
+                    }
+                }
+                case '@' -> {
+                    if (startsWith(text, i + 1, "everyone") || startsWith(text, i + 1, "here")) {
+                        out.append("@\u200B");
+                        continue;
+                    }
+                }
+                case 'h' -> {
+                    int end = linkEnd(text, i);
+                    if (end > i) {
+                        out.append(text, i, end);
+                        i = end - 1;
+                        continue;
+                    }
+                }
+                default -> {
+                }
+            }
+            out.append(c);
+        }
+    }
+
+    /**
+     * Returns where an {@code http://} or {@code https://} link starting at {@code start} ends (the next
+     * whitespace or section sign), or {@code start} if there is no link there.
+     */
+    private static int linkEnd(CharSequence text, int start) {
+        boolean afterFormattingCode = start > 1 && text.charAt(start - 2) == MessageTemplate.SECTION_SIGN;
+        if (start > 0 && Character.isLetterOrDigit(text.charAt(start - 1)) && !afterFormattingCode) {
+            return start;
+        }
+        int end;
+        if (startsWith(text, start, "https://")) {
+            end = start + 8;
+        } else if (startsWith(text, start, "http://")) {
+            end = start + 7;
+        } else {
+            return start;
+        }
+        int length = text.length();
+        while (end < length && !Character.isWhitespace(text.charAt(end)) && text.charAt(end) != MessageTemplate.SECTION_SIGN) {
+            end++;
+        }
+        return end;
+    }
+
+    /**
+     * Whether the current output line so far is only digits, so a following {@code ". "} would start
+     * a numbered list.
+     */
+    private static boolean afterLineStartNumber(StringBuilder out) {
+        int i = out.length();
+        while (i > 0 && out.charAt(i - 1) >= '0' && out.charAt(i - 1) <= '9') {
+            i--;
+        }
+        return i < out.length() && (i == 0 || out.charAt(i - 1) == '\n');
+    }
+
+    private static boolean startsWith(CharSequence text, int offset, String prefix) {
+        if (offset + prefix.length() > text.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (text.charAt(offset + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
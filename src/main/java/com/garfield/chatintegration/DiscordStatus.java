@@ -0,0 +1,88 @@
+package com.garfield.chatintegration;
+
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Shows the online player count as the bot's presence and, optionally, the channel topic. Discord
+ * allows few presence and very few topic updates, so each target publishes at most once per its own
+ * interval; changes in between are coalesced and only the latest count is sent.
+ */
+public class DiscordStatus {
+    private static final long COALESCE_MILLIS = 2000L;
+
+    private final BridgeExecutor executor;
+    private final OnlinePlayers onlinePlayers;
+    private final String format;
+    private final Target presence;
+    private final Target topic;
+
+    private final class Target {
+        final long minIntervalMillis;
+        final Consumer<String> publisher;
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        volatile long lastPublishedAt;
+        volatile String lastText;
+
+        Target(long minIntervalMillis, Consumer<String> publisher) {
+            this.minIntervalMillis = minIntervalMillis;
+            this.publisher = publisher;
+        }
+
+        void request() {
+            if (scheduled.compareAndSet(false, true)) {
+                long delay = Math.max(COALESCE_MILLIS, lastPublishedAt + minIntervalMillis - System.currentTimeMillis());
+                executor.schedule(this::publish, delay, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        void publish() {
+            scheduled.set(false);
+            String text = format();
+            if (!text.equals(lastText)) {
+                lastText = text;
+                lastPublishedAt = System.currentTimeMillis();
+                publisher.accept(text);
+            }
+        }
+    }
+
+    public DiscordStatus(ChatIntegration plugin, BridgeExecutor executor, OnlinePlayers onlinePlayers, Consumer<String> presence, Consumer<String> topic) {
+        FileConfiguration config = plugin.getConfig();
+        this.executor = executor;
+        this.onlinePlayers = onlinePlayers;
+        this.format = config.getString("status.format", "%online%/%max% online");
+        this.presence = config.getBoolean("status.presence.enabled", true)
+                ? new Target(TimeUnit.SECONDS.toMillis(config.getLong("status.presence.minIntervalSeconds", 30)), presence) : null;
+        this.topic = config.getBoolean("status.topic.enabled", false)
+                ? new Target(TimeUnit.SECONDS.toMillis(config.getLong("status.topic.minIntervalSeconds", 600)), topic) : null;
+    }
+
+    /**
+     * Publishes the current count and follows later joins and quits; call once Discord is ready.
+     */
+    public void start() {
+        if (presence == null && topic == null) {
+            return;
+        }
+        onlinePlayers.addListener(this::request);
+        request();
+    }
+
+    private void request() {
+        if (presence != null) {
+            presence.request();
+        }
+        if (topic != null) {
+            topic.request();
+        }
+    }
+
+    private String format() {
+        return format.replace("%online%", Integer.toString(onlinePlayers.getPlayers().size()))
+                .replace("%max%", Integer.toString(onlinePlayers.getMaxPlayers()));
+    }
+}
@@ -0,0 +1,249 @@
+package com.garfield.chatintegration;
+
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rate limits one direction of the bridge with a token bucket per sender plus one shared bucket.
+ * Buckets use the GCRA form of a token bucket, a single theoretical-arrival time updated by CAS, so
+ * admitting a message never locks. Lines over the limit are dropped or delayed, and with the
+ * collapse policy identical repeats from one sender are held back and reported as a single "(xN)".
+ */
+public class FloodControl<K> {
+    public enum Policy {
+        DROP,
+        DELAY,
+        COLLAPSE
+    }
+
+    /**
+     * Sends an admitted message; {@code repeats} is 0 for a normal send, or the number of identical
+     * messages a collapse summary stands for.
+     */
+    public interface Delivery {
+        void deliver(int repeats);
+    }
+
+    private static final long SWEEP_SECONDS = 60L;
+
+    private final BridgeExecutor executor;
+    private final BridgeMetrics metrics;
+    private final boolean enabled;
+    private final Policy policy;
+    private final double senderRate;
+    private final int senderBurst;
+    private final Bucket global;
+    private final long maxDelayNanos;
+    private final long collapseWindowNanos;
+    private final Map<K, Sender> senders = new ConcurrentHashMap<>();
+
+    /**
+     * Token bucket stored as the time at which it would next be empty, in nanoseconds.
+     */
+    static final class Bucket {
+        private final long interval;
+        private final long tolerance;
+        private final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+
+        Bucket(double ratePerSecond, int burst) {
+            this.interval = (long) (TimeUnit.SECONDS.toNanos(1) / Math.max(0.001, ratePerSecond));
+            this.tolerance = interval * Math.max(0, burst - 1);
+        }
+
+        /**
+         * Takes a token, returning how long the caller must wait for it, or -1 if that would be
+         * longer than {@code maxDelayNanos}; nothing is taken in that case.
+         */
+        long reserve(long now, long maxDelayNanos) {
+            while (true) {
+                long current = theoreticalArrival.get();
+                long start = Math.max(current, now);
+                long delay = Math.max(0L, start - tolerance - now);
+                if (delay > maxDelayNanos) {
+                    return -1L;
+                }
+                if (theoreticalArrival.compareAndSet(current, start + interval)) {
+                    return delay;
+                }
+            }
+        }
+
+        boolean isIdle(long now) {
+            return theoreticalArrival.get() < now;
+        }
+    }
+
+    private static final class Sender {
+        final Bucket bucket;
+        String lastLine;
+        Delivery lastDelivery;
+        long lastLineAt;
+        int repeats;
+        boolean flushScheduled;
+
+        Sender(Bucket bucket) {
+            this.bucket = bucket;
+        }
+    }
+
+    public FloodControl(ChatIntegration plugin, BridgeExecutor executor, BridgeMetrics metrics, String path) {
+        FileConfiguration config = plugin.getConfig();
+        this.executor = executor;
+        this.metrics = metrics;
+        this.enabled = config.getBoolean("flood.enabled", true);
+        this.policy = parsePolicy(plugin, config.getString(path + ".policy", "collapse"), path);
+        this.senderRate = config.getDouble(path + ".perSender.rate", 1.0);
+        this.senderBurst = config.getInt(path + ".perSender.burst", 5);
+        this.global = new Bucket(config.getDouble(path + ".global.rate", 10.0), config.getInt(path + ".global.burst", 30));
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(config.getLong("flood.maxDelayMillis", 5000));
+        this.collapseWindowNanos = TimeUnit.MILLISECONDS.toNanos(config.getLong("flood.collapseWindowMillis", 5000));
+    }
+
+    private static Policy parsePolicy(ChatIntegration plugin, String value, String path) {
+        try {
+            return Policy.valueOf(value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            plugin.getLogger().warning("Unknown " + path + ".policy '" + value + "', using collapse");
+            return Policy.COLLAPSE;
+        }
+    }
+
+    public void start() {
+        if (enabled) {
+            executor.scheduleAtFixedRate(this::sweep, SWEEP_SECONDS, SWEEP_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Admits, delays, collapses or drops one message; {@code line} identifies it for collapsing.
+     */
+    public void submit(K key, String line, Delivery delivery) {
+        if (!enabled) {
+            delivery.deliver(0);
+            return;
+        }
+        long now = System.nanoTime();
+        Sender sender = senders.computeIfAbsent(key, k -> new Sender(new Bucket(senderRate, senderBurst)));
+        if (policy == Policy.COLLAPSE && collapse(sender, line, now, delivery)) {
+            return;
+        }
+        long allowedDelay = policy == Policy.DELAY ? maxDelayNanos : 0L;
+        long delay = sender.bucket.reserve(now, allowedDelay);
+        if (delay >= 0L) {
+            long globalDelay = global.reserve(now, allowedDelay);
+            delay = globalDelay >= 0L ? Math.max(delay, globalDelay) : -1L;
+        }
+        if (delay < 0L) {
+            metrics.floodDropped.increment();
+        } else if (delay == 0L) {
+            delivery.deliver(0);
+        } else {
+            metrics.floodDelayed.increment();
+            executor.schedule(() -> delivery.deliver(0), delay, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Swallows a line identical to the sender's previous one within the collapse window, scheduling a
+     * single summary for the end of the window. A different line first flushes any pending summary.
+     */
+    private boolean collapse(Sender sender, String line, long now, Delivery delivery) {
+        Delivery pending = null;
+        int pendingRepeats = 0;
+        synchronized (sender) {
+            if (line.equals(sender.lastLine) && now - sender.lastLineAt < collapseWindowNanos) {
+                sender.repeats++;
+                metrics.floodCollapsed.increment();
+                if (!sender.flushScheduled) {
+                    sender.flushScheduled = true;
+                    long remaining = collapseWindowNanos - (now - sender.lastLineAt);
+                    executor.schedule(() -> flushRepeats(sender), remaining, TimeUnit.NANOSECONDS);
+                }
+                return true;
+            }
+            if (sender.repeats > 0) {
+                pending = sender.lastDelivery;
+                pendingRepeats = sender.repeats;
+            }
+            sender.lastLine = line;
+            sender.lastDelivery = delivery;
+            sender.lastLineAt = now;
+            sender.repeats = 0;
+        }
+        if (pending != null) {
+            pending.deliver(pendingRepeats);
+        }
+        return false;
+    }
+
+    private void flushRepeats(Sender sender) {
+        Delivery delivery;
+        int repeats;
+        synchronized (sender) {
+            sender.flushScheduled = false;
+            delivery = sender.lastDelivery;
+            repeats = sender.repeats;
+            if (repeats > 0) {
+                sender.repeats = 0;
+                sender.lastLine = null;
+                sender.lastDelivery = null;
+            }
+        }
+        if (repeats > 0) {
+            delivery.deliver(repeats);
+        }
+    }
+
+    private void sweep() {
+        long now = System.nanoTime();
+        senders.entrySet().removeIf(entry -> {
+            Sender sender = entry.getValue();
+            synchronized (sender) {
+                return sender.bucket.isIdle(now) && sender.repeats == 0 && !sender.flushScheduled
+                        && (sender.lastLine == null || now - sender.lastLineAt >= collapseWindowNanos);
+            }
+        });
+    }
+
+    /**
+     * Remembers the system lines sent for each subject (a player, or the server for status lines)
+     * within the window, so a line repeated inside it is only sent once. That covers a death loop and
+     * a player flapping in and out: join, leave, join within the window announces one join and one
+     * leave. Lines from different subjects never suppress each other.
+     */
+    public static final class Deduplicator {
+        private static final int CAPACITY = 512;
+
+        private final long windowMillis;
+        private final Map<Object, Map<String, Long>> recent = new LinkedHashMap<>(CAPACITY * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Map<String, Long>> eldest) {
+                return size() > CAPACITY;
+            }
+        };
+
+        public Deduplicator(long windowMillis) {
+            this.windowMillis = windowMillis;
+        }
+
+        public synchronized boolean isDuplicate(Object subject, String line) {
+            if (windowMillis <= 0L) {
+                return false;
+            }
+            long now = System.currentTimeMillis();
+            Map<String, Long> lines = recent.computeIfAbsent(subject, key -> new HashMap<>(4));
+            lines.values().removeIf(at -> now - at >= windowMillis);
+            if (lines.containsKey(line)) {
+                return true;
+            }
+            lines.put(line, now);
+            return false;
+        }
+    }
+}
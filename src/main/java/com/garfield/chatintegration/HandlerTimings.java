@@ -0,0 +1,70 @@
+package com.garfield.chatintegration;
+
+import org.bukkit.Bukkit;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records how long the server's main thread spends inside the plugin's event handlers and in the
+ * per-tick broadcast of Discord messages.
+ */
+public class HandlerTimings {
+    public enum Handler {
+        JOIN,
+        LEAVE,
+        DEATH,
+        ADVANCEMENT,
+        INBOUND
+    }
+
+    private static final class Timing {
+        final LongAdder calls = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final AtomicLong maxNanos = new AtomicLong();
+    }
+
+    private final Map<Handler, Timing> timings = new EnumMap<>(Handler.class);
+
+    public HandlerTimings() {
+        for (Handler handler : Handler.values()) {
+            timings.put(handler, new Timing());
+        }
+    }
+
+    public void record(Handler handler, long startNanos) {
+        if (!Bukkit.isPrimaryThread()) {
+            return;
+        }
+        long elapsed = System.nanoTime() - startNanos;
+        Timing timing = timings.get(handler);
+        timing.calls.increment();
+        timing.totalNanos.add(elapsed);
+        timing.maxNanos.accumulateAndGet(elapsed, Math::max);
+    }
+
+    public long getCalls(Handler handler) {
+        return timings.get(handler).calls.sum();
+    }
+
+    public double getAverageMicros(Handler handler) {
+        Timing timing = timings.get(handler);
+        long calls = timing.calls.sum();
+        return calls == 0 ? 0.0 : timing.totalNanos.sum() / (calls * 1000.0);
+    }
+
+    public double getMaxMicros(Handler handler) {
+        return timings.get(handler).maxNanos.get() / 1000.0;
+    }
+
+    public String summary() {
+        StringBuilder builder = new StringBuilder("Main thread time in handlers:");
+        for (Handler handler : Handler.values()) {
+            builder.append(String.format(" %s=%d calls/avg %.1fus/max %.1fus", handler.name().toLowerCase(),
+                    getCalls(handler), getAverageMicros(handler), getMaxMicros(handler)));
+        }
+        return builder.toString();
+    }
+}
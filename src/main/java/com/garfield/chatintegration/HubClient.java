@@ -0,0 +1,161 @@
+package com.garfield.chatintegration;
+
+import club.minnced.discord.webhook.send.WebhookEmbed;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Logger;
+
+/**
+ * Relay side of hub mode: forwards outbound messages to the hub over a pipelined connection and keeps
+ * them until the hub's cumulative acknowledgement arrives, resending on reconnect. The latest player
+ * list is sent after every change and again on each reconnect.
+ */
+public class HubClient {
+    private final String serverId;
+    private final String secret;
+    private final String host;
+    private final int port;
+    private final int maxUnacknowledged;
+    private final InboundBroadcaster inboundBroadcaster;
+    private final BridgeMetrics metrics;
+    private final Logger logger;
+    private final long session = ThreadLocalRandom.current().nextLong();
+    private final ConcurrentSkipListMap<Long, byte[]> unacknowledged = new ConcurrentSkipListMap<>();
+    private long sequence;
+    private byte[] players;
+    private HubProtocol.FrameWriter writer;
+    private volatile Socket socket;
+    private volatile boolean running = true;
+
+    public HubClient(ChatIntegration plugin, InboundBroadcaster inboundBroadcaster, BridgeMetrics metrics) {
+        this.serverId = plugin.getConfig().getString("hub.serverId", plugin.getServer().getName());
+        this.secret = plugin.getConfig().getString("hub.secret", "");
+        this.host = plugin.getConfig().getString("hub.host", "127.0.0.1");
+        this.port = plugin.getConfig().getInt("hub.port", 25580);
+        this.maxUnacknowledged = Math.max(1, plugin.getConfig().getInt("hub.maxUnacknowledged", 10000));
+        this.inboundBroadcaster = inboundBroadcaster;
+        this.metrics = metrics;
+        this.logger = plugin.getLogger();
+    }
+
+    public synchronized void sendOutbound(String content, WebhookEmbed embed, String username, String avatarUrl, WebhookPipeline.Kind kind, UUID playerId) {
+        if (!running) {
+            return;
+        }
+        byte[] payload = HubProtocol.encodeOutbound(content, embed, username, avatarUrl, kind, playerId);
+        long next = ++sequence;
+        unacknowledged.put(next, payload);
+        if (unacknowledged.size() > maxUnacknowledged) {
+            unacknowledged.pollFirstEntry();
+            metrics.outboundDropped.increment();
+        }
+        if (writer != null) {
+            writer.enqueue(HubProtocol.OUTBOUND, next, payload);
+        }
+    }
+
+    public synchronized void sendPlayers(int maxPlayers, List<OnlinePlayers.Entry> online) {
+        if (!running) {
+            return;
+        }
+        players = HubProtocol.encodePlayers(maxPlayers, online);
+        if (writer != null) {
+            writer.enqueue(HubProtocol.PLAYERS, 0L, players);
+        }
+    }
+
+    public void run(BridgeExecutor executor) {
+        long backoff = 1000L;
+        while (running) {
+            try (Socket connection = new Socket()) {
+                connection.connect(new InetSocketAddress(host, port), 5000);
+                connection.setTcpNoDelay(true);
+                this.socket = connection;
+                HubProtocol.FrameWriter frameWriter = new HubProtocol.FrameWriter(connection.getOutputStream());
+                executor.execute(frameWriter::run);
+                attach(frameWriter);
+                logger.info("Connected to Discord hub at " + host + ":" + port);
+                backoff = 1000L;
+                read(new DataInputStream(new BufferedInputStream(connection.getInputStream(), 1 << 16)));
+            } catch (IOException e) {
+                if (running) {
+                    logger.warning("Discord hub connection lost: " + e.getMessage());
+                }
+            } finally {
+                detach();
+            }
+            if (running) {
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                backoff = Math.min(backoff * 2, 30000L);
+            }
+        }
+    }
+
+    private synchronized void attach(HubProtocol.FrameWriter frameWriter) {
+        frameWriter.enqueue(HubProtocol.HELLO, 0L, HubProtocol.encodeHello(serverId, session, secret));
+        if (players != null) {
+            frameWriter.enqueue(HubProtocol.PLAYERS, 0L, players);
+        }
+        for (Map.Entry<Long, byte[]> entry : unacknowledged.entrySet()) {
+            frameWriter.enqueue(HubProtocol.OUTBOUND, entry.getKey(), entry.getValue());
+        }
+        this.writer = frameWriter;
+    }
+
+    private synchronized void detach() {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+        socket = null;
+    }
+
+    private void read(DataInputStream in) throws IOException {
+        while (running) {
+            HubProtocol.Frame frame = HubProtocol.readFrame(in);
+            if (frame.type() == HubProtocol.ACK) {
+                unacknowledged.headMap(frame.sequence(), true).clear();
+            } else if (frame.type() == HubProtocol.INBOUND) {
+                inboundBroadcaster.enqueue(HubProtocol.decodeInbound(frame.payload()));
+            }
+        }
+    }
+
+    public int getUnacknowledged() {
+        return unacknowledged.size();
+    }
+
+    public void close(long timeoutMillis) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (!unacknowledged.isEmpty() && socket != null && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        running = false;
+        Socket current = socket;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
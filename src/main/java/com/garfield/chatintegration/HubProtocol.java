@@ -0,0 +1,286 @@
+package com.garfield.chatintegration;
+
+import club.minnced.discord.webhook.send.WebhookEmbed;
+import club.minnced.discord.webhook.send.WebhookEmbedBuilder;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Binary framing shared by {@link HubServer} and {@link HubClient}. Every frame is
+ * {@code int length, byte type, long sequence, payload}; the length covers type, sequence and payload.
+ */
+final class HubProtocol {
+    static final byte HELLO = 1;
+    static final byte OUTBOUND = 2;
+    static final byte ACK = 3;
+    static final byte INBOUND = 4;
+    static final byte PLAYERS = 5;
+
+    static final int MAX_FRAME_LENGTH = 1 << 20;
+    static final int ACK_EVERY = 32;
+
+    record Frame(byte type, long sequence, byte[] payload) {
+    }
+
+    record Hello(String serverId, long session, String secret) {
+    }
+
+    /**
+     * A relayed webhook message; {@code playerId} is the sender of a chat line, so the hub can show the
+     * linked Discord member, and null otherwise.
+     */
+    record Outbound(String content, WebhookEmbed embed, String username, String avatarUrl, WebhookPipeline.Kind kind, UUID playerId) {
+    }
+
+    private HubProtocol() {
+    }
+
+    static void writeFrame(DataOutputStream out, byte type, long sequence, byte[] payload) throws IOException {
+        out.writeInt(1 + 8 + payload.length);
+        out.writeByte(type);
+        out.writeLong(sequence);
+        out.write(payload);
+    }
+
+    static Frame readFrame(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 9 || length > MAX_FRAME_LENGTH) {
+            throw new IOException("Invalid hub frame length " + length);
+        }
+        byte type = in.readByte();
+        long sequence = in.readLong();
+        byte[] payload = new byte[length - 9];
+        in.readFully(payload);
+        return new Frame(type, sequence, payload);
+    }
+
+    static byte[] encodeHello(String serverId, long session, String secret) {
+        return encode(out -> {
+            out.writeUTF(serverId);
+            out.writeLong(session);
+            out.writeUTF(secret);
+        });
+    }
+
+    static Hello decodeHello(byte[] payload) throws IOException {
+        DataInputStream in = input(payload);
+        return new Hello(in.readUTF(), in.readLong(), in.readUTF());
+    }
+
+    static byte[] encodeOutbound(String content, WebhookEmbed embed, String username, String avatarUrl, WebhookPipeline.Kind kind, UUID playerId) {
+        return encode(out -> {
+            out.writeByte(kind.ordinal());
+            writeNullable(out, username);
+            writeNullable(out, avatarUrl);
+            writeNullable(out, content);
+            out.writeBoolean(embed != null);
+            if (embed != null) {
+                writeEmbed(out, embed);
+            }
+            out.writeBoolean(playerId != null);
+            if (playerId != null) {
+                out.writeLong(playerId.getMostSignificantBits());
+                out.writeLong(playerId.getLeastSignificantBits());
+            }
+        });
+    }
+
+    static Outbound decodeOutbound(byte[] payload) throws IOException {
+        DataInputStream in = input(payload);
+        WebhookPipeline.Kind[] kinds = WebhookPipeline.Kind.values();
+        int ordinal = in.readUnsignedByte();
+        WebhookPipeline.Kind kind = ordinal < kinds.length ? kinds[ordinal] : WebhookPipeline.Kind.CHAT;
+        String username = readNullable(in);
+        String avatarUrl = readNullable(in);
+        String content = readNullable(in);
+        WebhookEmbed embed = in.readBoolean() ? readEmbed(in) : null;
+        // Older relays end the frame after the embed.
+        UUID playerId = (in.available() > 0 && in.readBoolean()) ? new UUID(in.readLong(), in.readLong()) : null;
+        return new Outbound(content, embed, username, avatarUrl, kind, playerId);
+    }
+
+    static byte[] encodePlayers(int maxPlayers, List<OnlinePlayers.Entry> players) {
+        return encode(out -> {
+            out.writeInt(maxPlayers);
+            out.writeInt(players.size());
+            for (OnlinePlayers.Entry player : players) {
+                out.writeLong(player.playerId().getMostSignificantBits());
+                out.writeLong(player.playerId().getLeastSignificantBits());
+                out.writeUTF(player.name());
+            }
+        });
+    }
+
+    static OnlinePlayers.Roster decodePlayers(byte[] payload) throws IOException {
+        DataInputStream in = input(payload);
+        int maxPlayers = in.readInt();
+        int count = in.readInt();
+        if (count < 0 || count > payload.length) {
+            throw new IOException("Invalid player count " + count);
+        }
+        List<OnlinePlayers.Entry> players = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            players.add(new OnlinePlayers.Entry(new UUID(in.readLong(), in.readLong()), in.readUTF(), 0L));
+        }
+        return new OnlinePlayers.Roster(maxPlayers, players);
+    }
+
+    static byte[] encodeInbound(InboundBroadcaster.InboundMessage message) {
+        return encode(out -> {
+            out.writeLong(message.discordId());
+            out.writeUTF(message.minecraftName());
+            out.writeUTF(message.discordName());
+            out.writeUTF(message.content());
+            out.writeShort(message.mentions().size());
+            for (Map.Entry<Long, String> mention : message.mentions().entrySet()) {
+                out.writeLong(mention.getKey());
+                out.writeUTF(mention.getValue());
+            }
+            writeNullable(out, message.replyTo());
+            out.writeShort(message.attachments().size());
+            for (InboundBroadcaster.Attachment attachment : message.attachments()) {
+                out.writeUTF(attachment.fileName());
+                out.writeUTF(attachment.url());
+            }
+        });
+    }
+
+    static InboundBroadcaster.InboundMessage decodeInbound(byte[] payload) throws IOException {
+        DataInputStream in = input(payload);
+        long discordId = in.readLong();
+        String minecraftName = in.readUTF();
+        String discordName = in.readUTF();
+        String content = in.readUTF();
+        int mentionCount = in.readUnsignedShort();
+        Map<Long, String> mentions = new HashMap<>(mentionCount * 2);
+        for (int i = 0; i < mentionCount; i++) {
+            mentions.put(in.readLong(), in.readUTF());
+        }
+        String replyTo = readNullable(in);
+        int attachmentCount = in.readUnsignedShort();
+        List<InboundBroadcaster.Attachment> attachments = new ArrayList<>(attachmentCount);
+        for (int i = 0; i < attachmentCount; i++) {
+            attachments.add(new InboundBroadcaster.Attachment(in.readUTF(), in.readUTF()));
+        }
+        return new InboundBroadcaster.InboundMessage(discordId, minecraftName, discordName, content, mentions, replyTo, attachments, System.nanoTime());
+    }
+
+    private static void writeEmbed(DataOutputStream out, WebhookEmbed embed) throws IOException {
+        writeNullable(out, embed.getTitle() != null ? embed.getTitle().getText() : null);
+        writeNullable(out, embed.getTitle() != null ? embed.getTitle().getUrl() : null);
+        writeNullable(out, embed.getDescription());
+        out.writeInt(embed.getColor() != null ? embed.getColor() : -1);
+        writeNullable(out, embed.getFooter() != null ? embed.getFooter().getText() : null);
+        out.writeByte(embed.getFields().size());
+        for (WebhookEmbed.EmbedField field : embed.getFields()) {
+            out.writeBoolean(field.isInline());
+            out.writeUTF(field.getName());
+            out.writeUTF(field.getValue());
+        }
+    }
+
+    private static WebhookEmbed readEmbed(DataInputStream in) throws IOException {
+        WebhookEmbedBuilder builder = new WebhookEmbedBuilder();
+        String title = readNullable(in);
+        String titleUrl = readNullable(in);
+        if (title != null) {
+            builder.setTitle(new WebhookEmbed.EmbedTitle(title, titleUrl));
+        }
+        builder.setDescription(readNullable(in));
+        int colour = in.readInt();
+        if (colour >= 0) {
+            builder.setColor(colour);
+        }
+        String footer = readNullable(in);
+        if (footer != null) {
+            builder.setFooter(new WebhookEmbed.EmbedFooter(footer, null));
+        }
+        int fields = in.readUnsignedByte();
+        for (int i = 0; i < fields; i++) {
+            builder.addField(new WebhookEmbed.EmbedField(in.readBoolean(), in.readUTF(), in.readUTF()));
+        }
+        return builder.build();
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static DataInputStream input(byte[] payload) {
+        return new DataInputStream(new ByteArrayInputStream(payload));
+    }
+
+    private interface PayloadWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Writes frames queued from any thread on a single writer thread, flushing once per drained batch.
+     */
+    static final class FrameWriter {
+        private static final Frame CLOSE = new Frame((byte) 0, 0L, new byte[0]);
+
+        private final DataOutputStream out;
+        private final BlockingQueue<Frame> queue = new LinkedBlockingQueue<>();
+
+        FrameWriter(OutputStream stream) {
+            this.out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16));
+        }
+
+        void enqueue(byte type, long sequence, byte[] payload) {
+            queue.add(new Frame(type, sequence, payload));
+        }
+
+        void close() {
+            queue.add(CLOSE);
+        }
+
+        void run() {
+            try {
+                while (true) {
+                    Frame frame = queue.take();
+                    do {
+                        if (frame == CLOSE) {
+                            out.flush();
+                            return;
+                        }
+                        writeFrame(out, frame.type(), frame.sequence(), frame.payload());
+                    } while ((frame = queue.poll()) != null);
+                    out.flush();
+                }
+            } catch (IOException | InterruptedException ignored) {
+            }
+        }
+    }
+
+    private static byte[] encode(PayloadWriter writer) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writer.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,169 @@
+package com.garfield.chatintegration;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Accepts relay connections from backend servers in hub mode. Outbound frames are fed into the hub's
+ * webhook pipeline and acknowledged cumulatively up to the last one the pipeline accepted; a rejected
+ * frame closes the connection so the relay resends from there. Player lists from relays are merged
+ * into {@link OnlinePlayers} while they are connected. Inbound Discord messages are pushed back to
+ * relays.
+ */
+public class HubServer {
+    private final DiscordListener discordListener;
+    private final BridgeExecutor executor;
+    private final Logger logger;
+    private final byte[] secret;
+    private final ServerSocket serverSocket;
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+    private final Map<String, Long> sessions = new ConcurrentHashMap<>();
+    private final Map<String, Long> lastSequences = new ConcurrentHashMap<>();
+    private final Map<String, Connection> relays = new ConcurrentHashMap<>();
+    private volatile boolean running = true;
+
+    public HubServer(DiscordListener discordListener, BridgeExecutor executor, Logger logger, String host, int port, String secret) throws IOException {
+        this.discordListener = discordListener;
+        this.executor = executor;
+        this.logger = logger;
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        if (secret.isEmpty()) {
+            logger.warning("hub.secret is not set, any process that can reach " + host + ":" + port + " can relay messages");
+        }
+        this.serverSocket = new ServerSocket();
+        this.serverSocket.bind(new InetSocketAddress(host, port));
+        executor.execute(this::acceptLoop);
+        logger.info("Discord hub listening on " + host + ":" + port);
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                Connection connection = new Connection(socket);
+                connections.add(connection);
+                executor.execute(connection.writer::run);
+                executor.execute(connection::read);
+            } catch (IOException e) {
+                if (running) {
+                    logger.warning("Hub accept failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    public void broadcastInbound(InboundBroadcaster.InboundMessage message, String targetServerId) {
+        if (connections.isEmpty()) {
+            return;
+        }
+        byte[] payload = HubProtocol.encodeInbound(message);
+        for (Connection connection : connections) {
+            String serverId = connection.serverId;
+            if (serverId != null && (targetServerId == null || targetServerId.equals(serverId))) {
+                connection.writer.enqueue(HubProtocol.INBOUND, 0L, payload);
+            }
+        }
+    }
+
+    public void close() {
+        running = false;
+        try {
+            serverSocket.close();
+        } catch (IOException ignored) {
+        }
+        for (Connection connection : connections) {
+            connection.close();
+        }
+    }
+
+    private final class Connection {
+        private final Socket socket;
+        private final HubProtocol.FrameWriter writer;
+        private volatile String serverId;
+
+        Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.writer = new HubProtocol.FrameWriter(socket.getOutputStream());
+        }
+
+        void read() {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16))) {
+                HubProtocol.Frame hello = HubProtocol.readFrame(in);
+                if (hello.type() != HubProtocol.HELLO) {
+                    throw new IOException("Expected HELLO from relay");
+                }
+                HubProtocol.Hello identity = HubProtocol.decodeHello(hello.payload());
+                if (!MessageDigest.isEqual(secret, identity.secret().getBytes(StandardCharsets.UTF_8))) {
+                    logger.warning("Rejected relay " + identity.serverId() + " from " + socket.getRemoteSocketAddress() + ": wrong hub.secret");
+                    return;
+                }
+                Long previousSession = sessions.put(identity.serverId(), identity.session());
+                if (previousSession == null || previousSession != identity.session()) {
+                    lastSequences.put(identity.serverId(), 0L);
+                }
+                serverId = identity.serverId();
+                relays.put(serverId, this);
+                logger.info("Relay " + serverId + " connected from " + socket.getRemoteSocketAddress());
+
+                long lastSequence = lastSequences.getOrDefault(serverId, 0L);
+                int unacknowledged = 0;
+                while (running) {
+                    HubProtocol.Frame frame = HubProtocol.readFrame(in);
+                    if (frame.type() == HubProtocol.PLAYERS) {
+                        discordListener.getOnlinePlayers().setRelayPlayers(serverId, HubProtocol.decodePlayers(frame.payload()));
+                        continue;
+                    }
+                    if (frame.type() != HubProtocol.OUTBOUND) {
+                        continue;
+                    }
+                    if (frame.sequence() > lastSequence) {
+                        HubProtocol.Outbound outbound = HubProtocol.decodeOutbound(frame.payload());
+                        if (!discordListener.submitFromRelay(serverId, outbound)) {
+                            // Acknowledge what was accepted and drop the connection; the relay keeps the
+                            // rest and resends it after its reconnect backoff.
+                            writer.enqueue(HubProtocol.ACK, lastSequence, new byte[0]);
+                            logger.warning("Webhook queue full, pausing relay " + serverId + " at sequence " + lastSequence);
+                            return;
+                        }
+                        lastSequence = frame.sequence();
+                        lastSequences.put(serverId, lastSequence);
+                    }
+                    if (++unacknowledged >= HubProtocol.ACK_EVERY || in.available() == 0) {
+                        writer.enqueue(HubProtocol.ACK, lastSequence, new byte[0]);
+                        unacknowledged = 0;
+                    }
+                }
+            } catch (IOException e) {
+                if (running) {
+                    logger.info("Relay " + (serverId != null ? serverId : socket.getRemoteSocketAddress()) + " disconnected: " + e.getMessage());
+                }
+            } finally {
+                close();
+            }
+        }
+
+        void close() {
+            connections.remove(this);
+            // A relay that already reconnected keeps the roster its new connection sent.
+            if (serverId != null && relays.remove(serverId, this)) {
+                discordListener.getOnlinePlayers().removeRelayPlayers(serverId);
+            }
+            writer.close();
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.garfield.chatintegration;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.ObjLongConsumer;
+import java.util.logging.Logger;
+
+/**
+ * Immutable two-way index between Minecraft UUIDs and Discord user IDs, backed by
+ * open-addressing tables so neither direction boxes its keys or scans the mapping.
+ */
+public final class IdentityIndex {
+    public static final IdentityIndex EMPTY = new IdentityIndex(Map.of());
+
+    private final UUID[] players;
+    private final long[] discordIds;
+    private final long[] reverseKeys;
+    private final UUID[] reverseValues;
+    private final int mask;
+    private final int size;
+
+    public IdentityIndex(Map<UUID, Long> links) {
+        int capacity = Integer.highestOneBit(Math.max(4, links.size() * 2 - 1)) << 1;
+        this.players = new UUID[capacity];
+        this.discordIds = new long[capacity];
+        this.reverseKeys = new long[capacity];
+        this.reverseValues = new UUID[capacity];
+        this.mask = capacity - 1;
+        this.size = links.size();
+        for (Map.Entry<UUID, Long> entry : links.entrySet()) {
+            insert(entry.getKey(), entry.getValue());
+        }
+    }
+
+    public static IdentityIndex load(File file, Logger logger) {
+        if (!file.exists()) {
+            logger.warning("discord.json file not found!");
+            return EMPTY;
+        }
+        try {
+            return read(file, logger);
+        } catch (IOException | IllegalStateException e) {
+            e.printStackTrace();
+            return EMPTY;
+        }
+    }
+
+    static IdentityIndex read(File file, Logger logger) throws IOException {
+        Map<UUID, Long> links = new LinkedHashMap<>();
+        try (JsonReader reader = new JsonReader(new FileReader(file))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String key = reader.nextName();
+                if (reader.peek() == JsonToken.NULL) {
+                    reader.nextNull();
+                    continue;
+                }
+                String value = reader.nextString();
+                try {
+                    links.put(UUID.fromString(key), Long.parseLong(value));
+                } catch (IllegalArgumentException e) {
+                    logger.warning("Skipping invalid discord.json entry: " + key);
+                }
+            }
+            reader.endObject();
+        }
+        return new IdentityIndex(links);
+    }
+
+    private void insert(UUID player, long discordId) {
+        int slot = slot(player);
+        while (players[slot] != null && !players[slot].equals(player)) {
+            slot = (slot + 1) & mask;
+        }
+        players[slot] = player;
+        discordIds[slot] = discordId;
+
+        slot = slot(discordId);
+        while (reverseValues[slot] != null) {
+            if (reverseKeys[slot] == discordId) {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        reverseKeys[slot] = discordId;
+        reverseValues[slot] = player;
+    }
+
+    public long getDiscordId(UUID player) {
+        int slot = slot(player);
+        UUID candidate;
+        while ((candidate = players[slot]) != null) {
+            if (candidate.equals(player)) {
+                return discordIds[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return 0L;
+    }
+
+    public UUID getPlayerId(long discordId) {
+        int slot = slot(discordId);
+        UUID candidate;
+        while ((candidate = reverseValues[slot]) != null) {
+            if (reverseKeys[slot] == discordId) {
+                return candidate;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    public boolean contains(UUID player) {
+        return getDiscordId(player) != 0L;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void forEach(ObjLongConsumer<UUID> consumer) {
+        for (int i = 0; i < players.length; i++) {
+            if (players[i] != null) {
+                consumer.accept(players[i], discordIds[i]);
+            }
+        }
+    }
+
+    private int slot(UUID player) {
+        return slot(player.getMostSignificantBits() ^ player.getLeastSignificantBits());
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
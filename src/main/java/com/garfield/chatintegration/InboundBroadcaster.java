@@ -0,0 +1,156 @@
+package com.garfield.chatintegration;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.JoinConfiguration;
+import net.kyori.adventure.text.event.ClickEvent;
+import net.kyori.adventure.text.event.HoverEvent;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Queues Discord messages from the JDA thread and broadcasts them from the main thread once per
+ * tick, rendering everything drained in a tick into a single broadcast. Markdown is parsed when a
+ * message is queued so the main thread only assembles finished components.
+ */
+public class InboundBroadcaster {
+    private static final Component OPEN_IN_BROWSER = Component.text("Open in your browser");
+    private static final Component REPLY_PREFIX = Component.text("  \u250C ", NamedTextColor.DARK_GRAY);
+
+    public record Attachment(String fileName, String url) {
+    }
+
+    /**
+     * A Discord message to show in game; {@code content} is raw Discord markdown, {@code mentions}
+     * maps the user, role and channel IDs it mentions to display names, and {@code replyTo} is a
+     * short "name: text" summary of the message it replies to, or null.
+     */
+    public record InboundMessage(long discordId, String minecraftName, String discordName, String content, Map<Long, String> mentions, String replyTo, List<Attachment> attachments, long receivedAt) {
+    }
+
+    private record Pending(InboundMessage message, Component body) {
+    }
+
+    private record CachedPrefix(String minecraftName, String discordName, Component component) {
+    }
+
+    private final ChatIntegration plugin;
+    private final BridgeMetrics metrics;
+    private final HandlerTimings handlerTimings;
+    private final DiscordMarkdownParser parser;
+    private final Queue<Pending> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger overflow = new AtomicInteger();
+    private final Map<Long, CachedPrefix> prefixes = new HashMap<>();
+    private final int perTickCap;
+    private final int maxQueued;
+    private BukkitTask task;
+
+    public InboundBroadcaster(ChatIntegration plugin, BridgeMetrics metrics) {
+        this.plugin = plugin;
+        this.metrics = metrics;
+        this.handlerTimings = plugin.getHandlerTimings();
+        this.perTickCap = Math.max(1, plugin.getConfig().getInt("inbound.perTickCap", 5));
+        this.maxQueued = Math.max(perTickCap, plugin.getConfig().getInt("inbound.maxQueued", 200));
+        this.parser = new DiscordMarkdownParser(plugin.getConfig().getInt("inbound.maxParseLength", 2000), plugin.getConfig().getInt("inbound.maxParseDepth", 8));
+    }
+
+    public void start() {
+        task = plugin.getServer().getScheduler().runTaskTimer(plugin, this::drain, 1L, 1L);
+    }
+
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    public boolean enqueue(InboundMessage message) {
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            overflow.incrementAndGet();
+            metrics.inboundDropped.increment();
+            return false;
+        }
+        metrics.inboundMessages.increment();
+        Component body = message.content().isEmpty() ? null : parser.parse(message.content(), message.mentions());
+        queue.add(new Pending(message, body));
+        return true;
+    }
+
+    public int getQueueDepth() {
+        return queued.get();
+    }
+
+    private void drain() {
+        long start = System.nanoTime();
+        List<Component> lines = null;
+        List<InboundMessage> drained = null;
+        for (int i = 0; i < perTickCap; i++) {
+            Pending pending = queue.poll();
+            if (pending == null) {
+                break;
+            }
+            queued.decrementAndGet();
+            if (lines == null) {
+                lines = new ArrayList<>();
+                drained = new ArrayList<>();
+            }
+            render(pending, lines);
+            drained.add(pending.message());
+        }
+        int skipped = overflow.getAndSet(0);
+        if (skipped > 0) {
+            if (lines == null) {
+                lines = new ArrayList<>(1);
+            }
+            lines.add(Component.text("[" + skipped + " more Discord message" + (skipped == 1 ? "" : "s") + " not shown]", NamedTextColor.GRAY));
+        }
+        if (lines != null && !lines.isEmpty()) {
+            plugin.getServer().broadcast(Component.join(JoinConfiguration.newlines(), lines));
+            handlerTimings.record(HandlerTimings.Handler.INBOUND, start);
+        }
+        if (drained != null) {
+            long now = System.nanoTime();
+            for (InboundMessage message : drained) {
+                metrics.inboundBroadcast.recordNanos(now - message.receivedAt());
+            }
+        }
+    }
+
+    private void render(Pending pending, List<Component> lines) {
+        InboundMessage message = pending.message();
+        Component namePrefix = prefix(message);
+        if (message.replyTo() != null) {
+            lines.add(REPLY_PREFIX.append(Component.text(message.replyTo(), NamedTextColor.GRAY)));
+        }
+        for (Attachment attachment : message.attachments()) {
+            lines.add(namePrefix
+                    .append(Component.text("[" + attachment.fileName() + "]", NamedTextColor.AQUA)
+                            .clickEvent(ClickEvent.openUrl(attachment.url()))
+                            .hoverEvent(HoverEvent.showText(OPEN_IN_BROWSER))));
+        }
+        if (pending.body() != null) {
+            lines.add(namePrefix.append(pending.body()));
+        }
+    }
+
+    private Component prefix(InboundMessage message) {
+        CachedPrefix cached = prefixes.get(message.discordId());
+        if (cached == null || !cached.minecraftName().equals(message.minecraftName()) || !cached.discordName().equals(message.discordName())) {
+            Component component = Component.text("<" + message.minecraftName() + "> ", NamedTextColor.BLUE)
+                    .hoverEvent(HoverEvent.showText(Component.text(message.discordName())));
+            cached = new CachedPrefix(message.minecraftName(), message.discordName(), component);
+            prefixes.put(message.discordId(), cached);
+        }
+        return cached.component();
+    }
+}
@@ -0,0 +1,59 @@
+package com.garfield.chatintegration;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.event.ClickEvent;
+import net.kyori.adventure.text.event.HoverEvent;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandExecutor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.TabCompleter;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+public class LinkCommand implements CommandExecutor, TabCompleter {
+    private final DiscordListener discordListener;
+
+    public LinkCommand(DiscordListener discordListener) {
+        this.discordListener = discordListener;
+    }
+
+    @Override
+    public boolean onCommand(@NotNull CommandSender sender, @NotNull Command command, @NotNull String label, @NotNull String[] args) {
+        if (!(sender instanceof Player player)) {
+            sender.sendMessage(Component.text("Only players can link a Discord account.", NamedTextColor.RED));
+            return true;
+        }
+        if (!discordListener.canLink()) {
+            sender.sendMessage(Component.text("Account linking is handled by the hub server.", NamedTextColor.RED));
+            return true;
+        }
+        LinkStore links = discordListener.getLinkStore();
+        if (args.length == 1 && args[0].equalsIgnoreCase("remove")) {
+            if (!links.get().contains(player.getUniqueId())) {
+                player.sendMessage(Component.text("Your account is not linked to Discord.", NamedTextColor.GRAY));
+                return true;
+            }
+            links.unlink(player.getUniqueId());
+            player.sendMessage(Component.text("Unlinked your Discord account.", NamedTextColor.GREEN));
+            return true;
+        }
+        if (args.length != 0) {
+            return false;
+        }
+        String code = links.createCode(player.getUniqueId());
+        player.sendMessage(Component.text("Run ", NamedTextColor.GRAY)
+                .append(Component.text("/link code:" + code, NamedTextColor.AQUA)
+                        .clickEvent(ClickEvent.copyToClipboard(code))
+                        .hoverEvent(HoverEvent.showText(Component.text("Copy code"))))
+                .append(Component.text(" in Discord within " + links.getCodeExpirySeconds() / 60 + " minutes.", NamedTextColor.GRAY)));
+        return true;
+    }
+
+    @Override
+    public List<String> onTabComplete(@NotNull CommandSender sender, @NotNull Command command, @NotNull String label, @NotNull String[] args) {
+        return args.length == 1 ? List.of("remove") : List.of();
+    }
+}
@@ -0,0 +1,320 @@
+package com.garfield.chatintegration;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+/**
+ * Live store of Minecraft to Discord account links. Readers take the current immutable
+ * {@link IdentityIndex} without locking; writers build a new snapshot and swap it in. Changes are
+ * written back to discord.json in batches on the bridge executor via a temp file and atomic rename,
+ * and edits made to the file by hand are merged in as a diff against what was last read or written.
+ */
+public class LinkStore {
+    private static final char[] CODE_ALPHABET = "ABCDEFGHJKLMNPQRSTUVWXYZ23456789".toCharArray();
+    private static final int CODE_LENGTH = 6;
+
+    public interface Listener {
+        void linkChanged(UUID playerId, long previousDiscordId, long discordId);
+    }
+
+    private record PendingLink(UUID playerId, long expiresAt) {
+    }
+
+    private record Change(UUID playerId, long previousDiscordId, long discordId) {
+    }
+
+    private final File file;
+    private final Logger logger;
+    private final BridgeExecutor executor;
+    private final long writeDelayMillis;
+    private final long codeExpiryMillis;
+    private final long pollSeconds;
+    private volatile IdentityIndex snapshot = IdentityIndex.EMPTY;
+    private final Object updateLock = new Object();
+    private final Object fileLock = new Object();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final Map<String, PendingLink> pendingCodes = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private IdentityIndex diskState;
+    private volatile long loadedModified = -1L;
+    private volatile boolean dirty;
+    private ScheduledFuture<?> watcher;
+
+    public LinkStore(ChatIntegration plugin, BridgeExecutor executor) {
+        this.file = new File(plugin.getDataFolder(), "discord.json");
+        this.logger = plugin.getLogger();
+        this.executor = executor;
+        this.writeDelayMillis = plugin.getConfig().getLong("links.writeDelayMillis", 2000);
+        this.codeExpiryMillis = TimeUnit.SECONDS.toMillis(plugin.getConfig().getLong("links.codeExpirySeconds", 300));
+        this.pollSeconds = Math.max(1L, plugin.getConfig().getLong("links.pollSeconds", 5));
+    }
+
+    public IdentityIndex get() {
+        return snapshot;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Reads discord.json and publishes it through the same path as any other change, so listeners
+     * see every link that differs from what they were built with.
+     */
+    public void load() {
+        IdentityIndex loaded;
+        synchronized (fileLock) {
+            if (!file.exists()) {
+                logger.warning("discord.json file not found!");
+                diskState = IdentityIndex.EMPTY;
+                loadedModified = 0L;
+                return;
+            }
+            long modified = file.lastModified();
+            try {
+                loaded = IdentityIndex.read(file, logger);
+            } catch (IOException | IllegalStateException e) {
+                logger.severe("Failed to read discord.json, links will not be saved until it is fixed: " + e.getMessage());
+                return;
+            }
+            diskState = loaded;
+            loadedModified = modified;
+        }
+        apply(diff(snapshot, loaded));
+    }
+
+    public void startWatching() {
+        watcher = executor.scheduleAtFixedRate(this::checkForChanges, pollSeconds, pollSeconds, TimeUnit.SECONDS);
+    }
+
+    public void link(UUID playerId, long discordId) {
+        Map<UUID, Long> changes = new LinkedHashMap<>();
+        changes.put(playerId, discordId);
+        apply(changes);
+        markDirty();
+    }
+
+    public void unlink(UUID playerId) {
+        if (snapshot.contains(playerId)) {
+            link(playerId, 0L);
+        }
+    }
+
+    public String createCode(UUID playerId) {
+        long now = System.currentTimeMillis();
+        pendingCodes.values().removeIf(pending -> pending.playerId().equals(playerId) || pending.expiresAt() < now);
+        char[] code = new char[CODE_LENGTH];
+        String value;
+        do {
+            for (int i = 0; i < CODE_LENGTH; i++) {
+                code[i] = CODE_ALPHABET[random.nextInt(CODE_ALPHABET.length)];
+            }
+            value = new String(code);
+        } while (pendingCodes.putIfAbsent(value, new PendingLink(playerId, now + codeExpiryMillis)) != null);
+        return value;
+    }
+
+    public long getCodeExpirySeconds() {
+        return TimeUnit.MILLISECONDS.toSeconds(codeExpiryMillis);
+    }
+
+    public UUID redeemCode(String code, long discordId) {
+        PendingLink pending = pendingCodes.remove(code.trim().toUpperCase());
+        if (pending == null || pending.expiresAt() < System.currentTimeMillis()) {
+            return null;
+        }
+        link(pending.playerId(), discordId);
+        return pending.playerId();
+    }
+
+    /**
+     * Builds and publishes a new snapshot with the given links; a Discord ID of 0 removes the link.
+     * A Discord account can only be linked to one player, so linking it elsewhere drops the old link.
+     */
+    private void apply(Map<UUID, Long> updates) {
+        if (updates.isEmpty()) {
+            return;
+        }
+        List<Change> changes = new ArrayList<>();
+        synchronized (updateLock) {
+            Map<UUID, Long> links = new LinkedHashMap<>();
+            Map<Long, UUID> owners = new HashMap<>();
+            snapshot.forEach((playerId, discordId) -> {
+                links.put(playerId, discordId);
+                owners.put(discordId, playerId);
+            });
+            for (Map.Entry<UUID, Long> update : updates.entrySet()) {
+                UUID playerId = update.getKey();
+                long discordId = update.getValue();
+                if (discordId != 0L) {
+                    UUID owner = owners.put(discordId, playerId);
+                    if (owner != null && !owner.equals(playerId)) {
+                        links.remove(owner);
+                        changes.add(new Change(owner, discordId, 0L));
+                    }
+                }
+                Long previous = discordId != 0L ? links.put(playerId, discordId) : links.remove(playerId);
+                if (previous != null && previous != discordId) {
+                    owners.remove(previous, playerId);
+                }
+                long previousId = previous != null ? previous : 0L;
+                if (previousId != discordId) {
+                    changes.add(new Change(playerId, previousId, discordId));
+                }
+            }
+            if (changes.isEmpty()) {
+                return;
+            }
+            snapshot = new IdentityIndex(links);
+        }
+        for (Change change : changes) {
+            for (Listener listener : listeners) {
+                listener.linkChanged(change.playerId(), change.previousDiscordId(), change.discordId());
+            }
+        }
+    }
+
+    private void markDirty() {
+        dirty = true;
+        if (flushScheduled.compareAndSet(false, true)) {
+            executor.schedule(() -> {
+                flushScheduled.set(false);
+                flush();
+            }, writeDelayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Writes the current links to discord.json. Edits made to the file since it was last read are
+     * merged first, so a write never overwrites a hand edit the watcher has not picked up yet.
+     */
+    public void flush() {
+        synchronized (fileLock) {
+            if (!dirty) {
+                return;
+            }
+            Map<UUID, Long> external = diskState != null ? readExternalChanges() : null;
+            if (external == null) {
+                logger.warning("Not saving account links while discord.json cannot be read");
+                return;
+            }
+            if (!external.isEmpty()) {
+                logExternalChanges(external);
+                apply(external);
+            }
+            dirty = false;
+            IdentityIndex current = snapshot;
+            File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+            try {
+                Files.createDirectories(file.getParentFile().toPath());
+                try (JsonWriter writer = new JsonWriter(new FileWriter(temp))) {
+                    writer.setIndent("  ");
+                    writer.beginObject();
+                    IOException[] failure = new IOException[1];
+                    current.forEach((playerId, discordId) -> {
+                        try {
+                            writer.name(playerId.toString()).value(Long.toString(discordId));
+                        } catch (IOException e) {
+                            failure[0] = e;
+                        }
+                    });
+                    if (failure[0] != null) {
+                        throw failure[0];
+                    }
+                    writer.endObject();
+                }
+                try {
+                    Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+                diskState = current;
+                loadedModified = file.lastModified();
+            } catch (IOException e) {
+                dirty = true;
+                logger.warning("Failed to save discord.json: " + e.getMessage());
+            }
+        }
+    }
+
+    private void checkForChanges() {
+        Map<UUID, Long> changes;
+        synchronized (fileLock) {
+            changes = readExternalChanges();
+        }
+        if (changes != null && !changes.isEmpty()) {
+            logExternalChanges(changes);
+            apply(changes);
+        }
+    }
+
+    /**
+     * Reads discord.json if it changed since it was last read or written and returns the edits made
+     * to it, or null if it cannot be read. Must be called holding {@code fileLock}.
+     */
+    private Map<UUID, Long> readExternalChanges() {
+        long modified = file.exists() ? file.lastModified() : 0L;
+        if (modified == loadedModified || modified == 0L) {
+            return Map.of();
+        }
+        IdentityIndex external;
+        try {
+            external = IdentityIndex.read(file, logger);
+        } catch (IOException | IllegalStateException e) {
+            return null;
+        }
+        Map<UUID, Long> changes = diff(diskState != null ? diskState : snapshot, external);
+        diskState = external;
+        loadedModified = modified;
+        return changes;
+    }
+
+    private void logExternalChanges(Map<UUID, Long> changes) {
+        logger.info("Applying " + changes.size() + " external change" + (changes.size() == 1 ? "" : "s") + " to discord.json");
+    }
+
+    /**
+     * The updates that turn {@code from} into {@code to}, with 0 for links that were removed.
+     */
+    private static Map<UUID, Long> diff(IdentityIndex from, IdentityIndex to) {
+        Map<UUID, Long> changes = new LinkedHashMap<>();
+        to.forEach((playerId, discordId) -> {
+            if (from.getDiscordId(playerId) != discordId) {
+                changes.put(playerId, discordId);
+            }
+        });
+        from.forEach((playerId, discordId) -> {
+            if (!to.contains(playerId)) {
+                changes.put(playerId, 0L);
+            }
+        });
+        return changes;
+    }
+
+    public void close() {
+        if (watcher != null) {
+            watcher.cancel(false);
+        }
+        flush();
+    }
+}
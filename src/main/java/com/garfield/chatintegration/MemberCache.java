@@ -0,0 +1,119 @@
+package com.garfield.chatintegration;
+
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.exceptions.ErrorResponseException;
+import net.dv8tion.jda.api.requests.ErrorResponse;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class MemberCache {
+    private final ChatIntegration plugin;
+    private final Map<UUID, CachedMember> members = new ConcurrentHashMap<>();
+    private final Map<UUID, CompletableFuture<Member>> pending = new ConcurrentHashMap<>();
+    // Entries in the order they were written, oldest first; replaced entries stay until compacted.
+    private final Deque<CachedMember> writeOrder = new ArrayDeque<>();
+    private final long ttlMillis;
+    private final long retryMillis;
+    private final int maxSize;
+
+    private record CachedMember(UUID playerId, Member member, long expiresAt) {
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+
+    public MemberCache(ChatIntegration plugin) {
+        this.plugin = plugin;
+        this.ttlMillis = plugin.getConfig().getLong("memberCache.ttlSeconds", 600) * 1000L;
+        this.retryMillis = plugin.getConfig().getLong("memberCache.retrySeconds", 30) * 1000L;
+        this.maxSize = plugin.getConfig().getInt("memberCache.maxSize", 5000);
+    }
+
+    public Member getIfPresent(UUID playerId) {
+        CachedMember cached = members.get(playerId);
+        return cached != null ? cached.member() : null;
+    }
+
+    public boolean needsRefresh(UUID playerId) {
+        CachedMember cached = members.get(playerId);
+        return cached == null || cached.isExpired(System.currentTimeMillis());
+    }
+
+    public void put(UUID playerId, Member member) {
+        put(playerId, member, ttlMillis);
+    }
+
+    private synchronized void put(UUID playerId, Member member, long lifetimeMillis) {
+        CachedMember cached = new CachedMember(playerId, member, System.currentTimeMillis() + lifetimeMillis);
+        members.put(playerId, cached);
+        writeOrder.addLast(cached);
+        evict();
+    }
+
+    public void invalidate(UUID playerId) {
+        members.remove(playerId);
+    }
+
+    public CompletableFuture<Member> resolve(UUID playerId, long discordId, Guild guild) {
+        if (!needsRefresh(playerId)) {
+            return CompletableFuture.completedFuture(getIfPresent(playerId));
+        }
+        if (guild == null) {
+            return CompletableFuture.completedFuture(getIfPresent(playerId));
+        }
+        Member cachedByJda = guild.getMemberById(discordId);
+        if (cachedByJda != null) {
+            put(playerId, cachedByJda);
+            return CompletableFuture.completedFuture(cachedByJda);
+        }
+        CompletableFuture<Member> lookup = new CompletableFuture<>();
+        CompletableFuture<Member> existing = pending.putIfAbsent(playerId, lookup);
+        if (existing != null) {
+            return existing;
+        }
+        // Attached outside the map so a request that completes synchronously cannot touch pending mid-update.
+        guild.retrieveMemberById(discordId).submit().whenComplete((member, error) -> {
+            if (error == null) {
+                put(playerId, member);
+            } else if (isUnknownMember(error)) {
+                put(playerId, null);
+            } else {
+                plugin.getLogger().warning("Failed to fetch Discord member for UUID: " + playerId + ". Error: " + error.getMessage());
+                put(playerId, null, retryMillis);
+            }
+            pending.remove(playerId, lookup);
+            lookup.complete(member);
+        });
+        return lookup;
+    }
+
+    private static boolean isUnknownMember(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause instanceof ErrorResponseException response && response.getErrorResponse() == ErrorResponse.UNKNOWN_MEMBER;
+    }
+
+    /**
+     * Drops the oldest writes while the cache is over its size. With one lifetime for all entries that
+     * is also the earliest to expire. Entries that were replaced or invalidated are skipped, and they
+     * are compacted out once they make up half the queue, so each put costs O(1) amortised.
+     */
+    private void evict() {
+        while (members.size() > maxSize) {
+            CachedMember oldest = writeOrder.pollFirst();
+            if (oldest == null) {
+                return;
+            }
+            members.remove(oldest.playerId(), oldest);
+        }
+        if (writeOrder.size() > Math.max(maxSize, members.size()) * 2) {
+            writeOrder.removeIf(cached -> members.get(cached.playerId()) != cached);
+        }
+    }
+}
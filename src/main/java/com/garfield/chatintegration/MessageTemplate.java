@@ -0,0 +1,103 @@
+package com.garfield.chatintegration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A translation string compiled once into literal runs and positional slots. Legacy section-sign
+ * formatting codes are dropped from the literals while compiling; callers fill the slots through
+ * {@link #accept}.
+ */
+public final class MessageTemplate {
+    static final char SECTION_SIGN = '§';
+
+    private final String[] literals;
+    private final int[] slots;
+
+    private MessageTemplate(String[] literals, int[] slots) {
+        this.literals = literals;
+        this.slots = slots;
+    }
+
+    public static MessageTemplate compile(String pattern) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int nextSequential = 0;
+        int length = pattern.length();
+        int i = 0;
+        while (i < length) {
+            char c = pattern.charAt(i);
+            if (c == '%' && i + 1 < length) {
+                char next = pattern.charAt(i + 1);
+                if (next == '%') {
+                    literal.append('%');
+                    i += 2;
+                    continue;
+                }
+                if (next == 's') {
+                    literals.add(literal.toString());
+                    literal.setLength(0);
+                    slots.add(nextSequential++);
+                    i += 2;
+                    continue;
+                }
+                int j = i + 1;
+                int index = 0;
+                while (j < length && Character.isDigit(pattern.charAt(j))) {
+                    index = index * 10 + (pattern.charAt(j) - '0');
+                    j++;
+                }
+                if (j > i + 1 && j + 1 < length && pattern.charAt(j) == '$' && pattern.charAt(j + 1) == 's' && index > 0) {
+                    literals.add(literal.toString());
+                    literal.setLength(0);
+                    slots.add(index - 1);
+                    i = j + 2;
+                    continue;
+                }
+            }
+            if (c == SECTION_SIGN && i + 1 < length && isFormattingCode(pattern.charAt(i + 1))) {
+                i += 2;
+                continue;
+            }
+            literal.append(c);
+            i++;
+        }
+        literals.add(literal.toString());
+        return new MessageTemplate(literals.toArray(new String[0]), slots.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * Receives a template's literal runs and argument slots in order; the caller renders each
+     * argument itself, straight into its own output.
+     */
+    public interface Visitor {
+        void literal(String text);
+
+        boolean argument(int slot);
+    }
+
+    public void accept(Visitor visitor) {
+        for (int i = 0; i < slots.length; i++) {
+            if (!literals[i].isEmpty()) {
+                visitor.literal(literals[i]);
+            }
+            int slot = slots[i];
+            if (!visitor.argument(slot)) {
+                visitor.literal("%" + (slot + 1) + "$s");
+            }
+        }
+        if (!literals[slots.length].isEmpty()) {
+            visitor.literal(literals[slots.length]);
+        }
+    }
+
+    static boolean isFormattingCode(char c) {
+        return (c >= '0' && c <= '9')
+                || (c >= 'a' && c <= 'f')
+                || (c >= 'A' && c <= 'F')
+                || (c >= 'k' && c <= 'o')
+                || c == 'K' || c == 'L' || c == 'O'
+                || c == 'r' || c == 'R';
+    }
+}
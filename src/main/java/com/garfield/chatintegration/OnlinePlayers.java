@@ -0,0 +1,186 @@
+package com.garfield.chatintegration;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Players online on this server with their linked Discord accounts, kept sorted by name. Join, quit
+ * and link changes each swap in a new immutable list, so readers such as /list and the status line
+ * never walk the Bukkit player list. On a hub the lists reported by connected relays are merged in,
+ * so counts cover the whole network.
+ */
+public class OnlinePlayers implements Listener {
+    private static final Comparator<Entry> BY_NAME = Comparator.comparing(Entry::name, String.CASE_INSENSITIVE_ORDER);
+
+    public record Entry(UUID playerId, String name, long discordId) {
+    }
+
+    /**
+     * The players a relay last reported, with its player limit.
+     */
+    public record Roster(int maxPlayers, List<Entry> players) {
+    }
+
+    private final JavaPlugin plugin;
+    private final LinkStore links;
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private final Object updateLock = new Object();
+    private final Map<String, Roster> relays = new ConcurrentHashMap<>();
+    private volatile List<Entry> players = List.of();
+    private volatile List<Entry> network = List.of();
+    private volatile int relayMaxPlayers;
+
+    public OnlinePlayers(JavaPlugin plugin, LinkStore links) {
+        this.plugin = plugin;
+        this.links = links;
+        links.addListener(this::onLinkChanged);
+        for (Player player : plugin.getServer().getOnlinePlayers()) {
+            add(player.getUniqueId(), player.getName());
+        }
+    }
+
+    /**
+     * Players on this server and on every connected relay.
+     */
+    public List<Entry> getPlayers() {
+        return network;
+    }
+
+    /**
+     * Players on this server only, as reported by a relay to its hub.
+     */
+    public List<Entry> getLocalPlayers() {
+        return players;
+    }
+
+    public int getMaxPlayers() {
+        return plugin.getServer().getMaxPlayers() + relayMaxPlayers;
+    }
+
+    /**
+     * Replaces a relay's roster. Link state comes from this server's link store, not the relay's.
+     */
+    public void setRelayPlayers(String serverId, Roster roster) {
+        List<Entry> linked = new ArrayList<>(roster.players().size());
+        for (Entry entry : roster.players()) {
+            linked.add(new Entry(entry.playerId(), entry.name(), links.get().getDiscordId(entry.playerId())));
+        }
+        relays.put(serverId, new Roster(roster.maxPlayers(), linked));
+        update(list -> true);
+    }
+
+    public void removeRelayPlayers(String serverId) {
+        if (relays.remove(serverId) != null) {
+            update(list -> true);
+        }
+    }
+
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        add(event.getPlayer().getUniqueId(), event.getPlayer().getName());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        UUID playerId = event.getPlayer().getUniqueId();
+        update(list -> list.removeIf(entry -> entry.playerId().equals(playerId)));
+    }
+
+    private void add(UUID playerId, String name) {
+        Entry added = new Entry(playerId, name, links.get().getDiscordId(playerId));
+        update(list -> {
+            list.removeIf(entry -> entry.playerId().equals(playerId));
+            int index = Collections.binarySearch(list, added, BY_NAME);
+            list.add(index < 0 ? -index - 1 : index, added);
+            return true;
+        });
+    }
+
+    /**
+     * Loading discord.json reports every link, so offline players are filtered out before the list is
+     * copied; the seed taken before the load is corrected by these calls.
+     */
+    private void onLinkChanged(UUID playerId, long previousDiscordId, long discordId) {
+        for (Map.Entry<String, Roster> relay : relays.entrySet()) {
+            List<Entry> relayPlayers = relay.getValue().players();
+            for (int i = 0; i < relayPlayers.size(); i++) {
+                Entry entry = relayPlayers.get(i);
+                if (entry.playerId().equals(playerId)) {
+                    setRelayPlayers(relay.getKey(), relay.getValue());
+                    return;
+                }
+            }
+        }
+        if (!isOnline(playerId)) {
+            return;
+        }
+        update(list -> {
+            for (int i = 0; i < list.size(); i++) {
+                Entry entry = list.get(i);
+                if (entry.playerId().equals(playerId)) {
+                    list.set(i, new Entry(playerId, entry.name(), discordId));
+                    return true;
+                }
+            }
+            return false;
+        });
+    }
+
+    private boolean isOnline(UUID playerId) {
+        for (Entry entry : players) {
+            if (entry.playerId().equals(playerId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private interface Edit {
+        boolean apply(List<Entry> list);
+    }
+
+    private void update(Edit edit) {
+        synchronized (updateLock) {
+            List<Entry> list = new ArrayList<>(players);
+            if (!edit.apply(list)) {
+                return;
+            }
+            players = Collections.unmodifiableList(list);
+            if (relays.isEmpty()) {
+                network = players;
+                relayMaxPlayers = 0;
+            } else {
+                List<Entry> merged = new ArrayList<>(list);
+                int maxPlayers = 0;
+                for (Roster relay : relays.values()) {
+                    merged.addAll(relay.players());
+                    maxPlayers += relay.maxPlayers();
+                }
+                merged.sort(BY_NAME);
+                network = Collections.unmodifiableList(merged);
+                relayMaxPlayers = maxPlayers;
+            }
+        }
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package com.garfield.chatintegration;
+
+import sun.misc.Unsafe;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, memory-mapped spool of outbound webhook messages. Records carry increasing sequence
+ * numbers and are only released once {@link #acknowledge} moves past them, so anything Discord has not
+ * accepted is replayed after a reconnect or restart. Segments rotate at a fixed size and the oldest
+ * segment is discarded when the spool would exceed its disk budget. Forcing full segments and
+ * closing, unmapping and deleting retired ones runs on the given executor, so {@link #append} on the
+ * main thread only ever maps a fresh segment.
+ *
+ * <p>Record layout: {@code int payloadLength, long sequence, long threadId, int crc32, payload}. A zero
+ * length marks the end of the written part of a segment.
+ */
+public class OutboundSpool {
+    private static final int HEADER_BYTES = 4 + 8 + 8 + 4;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final Unsafe UNSAFE = loadUnsafe();
+
+    public record Record(long sequence, long threadId, byte[] payload) {
+    }
+
+    private final File directory;
+    private final Logger logger;
+    private final Executor executor;
+    private final int segmentBytes;
+    private final long maxBytes;
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    private final MappedByteBuffer checkpoint;
+    private final FileChannel checkpointChannel;
+    private final CRC32 crc = new CRC32();
+    private long nextSequence;
+    private long acknowledged;
+    private long discarded;
+    private boolean overflowing;
+
+    private static final class Segment {
+        final File file;
+        final long firstSequence;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        long lastSequence;
+        private boolean closed;
+
+        Segment(File file, long firstSequence, int size) throws IOException {
+            this.file = file;
+            this.firstSequence = firstSequence;
+            this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            this.lastSequence = firstSequence - 1;
+        }
+
+        synchronized void force() {
+            if (!closed) {
+                buffer.force();
+            }
+        }
+
+        /**
+         * Forces, closes and unmaps the segment; the buffer must not be touched afterwards.
+         */
+        synchronized void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            buffer.force();
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+            if (UNSAFE != null) {
+                UNSAFE.invokeCleaner(buffer);
+            }
+        }
+    }
+
+    private static Unsafe loadUnsafe() {
+        try {
+            Field field = Unsafe.class.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return (Unsafe) field.get(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    public OutboundSpool(File directory, Logger logger, Executor executor, int segmentBytes, long maxBytes) throws IOException {
+        this.directory = directory;
+        this.logger = logger;
+        this.executor = executor;
+        this.segmentBytes = segmentBytes;
+        this.maxBytes = Math.max(maxBytes, segmentBytes * 2L);
+        Files.createDirectories(directory.toPath());
+        this.checkpointChannel = FileChannel.open(new File(directory, "checkpoint").toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.checkpoint = checkpointChannel.map(FileChannel.MapMode.READ_WRITE, 0, 8);
+        this.acknowledged = checkpoint.getLong(0);
+        this.nextSequence = acknowledged + 1;
+        openExistingSegments();
+    }
+
+    private void openExistingSegments() throws IOException {
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, (a, b) -> Long.compare(firstSequenceOf(a), firstSequenceOf(b)));
+        for (File file : files) {
+            Segment segment = new Segment(file, firstSequenceOf(file), segmentBytes);
+            scan(segment);
+            if (segment.lastSequence <= acknowledged && segment.buffer.position() > 0) {
+                segment.close();
+                Files.deleteIfExists(file.toPath());
+                continue;
+            }
+            segments.addLast(segment);
+            nextSequence = Math.max(nextSequence, segment.lastSequence + 1);
+        }
+    }
+
+    private static long firstSequenceOf(File file) {
+        String name = file.getName();
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private void scan(Segment segment) {
+        MappedByteBuffer buffer = segment.buffer;
+        int position = 0;
+        while (position + HEADER_BYTES <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + HEADER_BYTES + length > buffer.capacity()) {
+                break;
+            }
+            long sequence = buffer.getLong(position + 4);
+            int expected = buffer.getInt(position + 20);
+            byte[] payload = new byte[length];
+            buffer.get(position + HEADER_BYTES, payload);
+            if (checksum(payload) != expected) {
+                logger.warning("Discarding torn record " + sequence + " in " + segment.file.getName());
+                break;
+            }
+            segment.lastSequence = sequence;
+            position += HEADER_BYTES + length;
+        }
+        buffer.position(position);
+    }
+
+    public synchronized long append(long threadId, byte[] payload) throws IOException {
+        Segment segment = segments.peekLast();
+        if (segment == null || segment.buffer.remaining() < HEADER_BYTES + payload.length + 4) {
+            segment = rotate();
+        }
+        if (segment.buffer.remaining() < HEADER_BYTES + payload.length + 4) {
+            throw new IOException("Spool record of " + payload.length + " bytes exceeds segment size");
+        }
+        long sequence = nextSequence++;
+        MappedByteBuffer buffer = segment.buffer;
+        int position = buffer.position();
+        buffer.putLong(position + 4, sequence);
+        buffer.putLong(position + 12, threadId);
+        buffer.putInt(position + 20, checksum(payload));
+        buffer.put(position + HEADER_BYTES, payload);
+        buffer.putInt(position, payload.length);
+        buffer.position(position + HEADER_BYTES + payload.length);
+        segment.lastSequence = sequence;
+        return sequence;
+    }
+
+    private Segment rotate() throws IOException {
+        Segment current = segments.peekLast();
+        if (current != null) {
+            inBackground(current::force);
+        }
+        while ((segments.size() + 1L) * segmentBytes > maxBytes && !segments.isEmpty()) {
+            Segment oldest = segments.pollFirst();
+            long lost = Math.max(0L, oldest.lastSequence - Math.max(acknowledged, oldest.firstSequence - 1));
+            discarded += lost;
+            if (lost > 0 && !overflowing) {
+                overflowing = true;
+                logger.warning("Outbound spool reached " + maxBytes + " bytes, discarding the oldest unsent messages");
+            }
+            release(oldest.lastSequence);
+            retire(oldest);
+        }
+        Segment segment = new Segment(new File(directory, SEGMENT_PREFIX + nextSequence + SEGMENT_SUFFIX), nextSequence, segmentBytes);
+        segments.addLast(segment);
+        return segment;
+    }
+
+    public synchronized void acknowledge(long sequence) {
+        overflowing = false;
+        release(sequence);
+    }
+
+    private void release(long sequence) {
+        if (sequence <= acknowledged) {
+            return;
+        }
+        acknowledged = sequence;
+        checkpoint.putLong(0, sequence);
+        while (segments.size() > 1 && segments.peekFirst().lastSequence <= acknowledged) {
+            retire(segments.pollFirst());
+        }
+    }
+
+    /**
+     * Closes, unmaps and deletes a segment that has already left {@link #segments}.
+     */
+    private void retire(Segment segment) {
+        inBackground(() -> {
+            segment.close();
+            try {
+                Files.deleteIfExists(segment.file.toPath());
+            } catch (IOException e) {
+                logger.warning("Failed to delete spool segment " + segment.file.getName() + ": " + e.getMessage());
+            }
+        });
+    }
+
+    private void inBackground(Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.run();
+        }
+    }
+
+    public synchronized List<Record> readUnacknowledged(long afterSequence, int limit) {
+        List<Record> records = new ArrayList<>();
+        long from = Math.max(afterSequence, acknowledged);
+        for (Segment segment : segments) {
+            if (segment.lastSequence <= from) {
+                continue;
+            }
+            MappedByteBuffer buffer = segment.buffer;
+            int position = 0;
+            int end = buffer.position();
+            while (position < end && records.size() < limit) {
+                int length = buffer.getInt(position);
+                long sequence = buffer.getLong(position + 4);
+                if (sequence > from) {
+                    byte[] payload = new byte[length];
+                    buffer.get(position + HEADER_BYTES, payload);
+                    records.add(new Record(sequence, buffer.getLong(position + 12), payload));
+                }
+                position += HEADER_BYTES + length;
+            }
+            if (records.size() >= limit) {
+                break;
+            }
+        }
+        return records;
+    }
+
+    public synchronized long getAcknowledged() {
+        return acknowledged;
+    }
+
+    public synchronized long getPending() {
+        return nextSequence - 1 - acknowledged;
+    }
+
+    public synchronized long getDiscarded() {
+        return discarded;
+    }
+
+    public synchronized long getDiskBytes() {
+        return (long) segments.size() * segmentBytes;
+    }
+
+    public synchronized void close() {
+        for (Segment segment : segments) {
+            segment.close();
+        }
+        segments.clear();
+        checkpoint.force();
+        try {
+            checkpointChannel.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private int checksum(byte[] payload) {
+        crc.reset();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,34 @@
+package com.garfield.chatintegration;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executor;
+
+/**
+ * Serves {@link BridgeMetrics} in the Prometheus text format on a local port.
+ */
+public class PrometheusExporter {
+    private final HttpServer server;
+
+    public PrometheusExporter(BridgeMetrics metrics, String host, int port, Executor executor) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(host, port), 0);
+        this.server.createContext("/metrics", exchange -> {
+            byte[] body = metrics.toPrometheus().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        this.server.setExecutor(executor);
+        this.server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+    }
+}
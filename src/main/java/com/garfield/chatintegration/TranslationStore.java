@@ -0,0 +1,87 @@
+package com.garfield.chatintegration;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Translations for the key namespaces the bridge renders, held as sorted key and template arrays.
+ * Language files are stream-parsed and everything outside those namespaces is skipped.
+ */
+public final class TranslationStore {
+    private static final String[] NAMESPACES = {"death.", "advancements.", "entity.minecraft.", "item.minecraft.",
+            "block.minecraft.", "enchantment.", "effect.minecraft.", "chat.square_brackets"};
+    private static final Map<String, TranslationStore> LOCALES = new ConcurrentHashMap<>();
+
+    private final String[] keys;
+    private final MessageTemplate[] templates;
+
+    private TranslationStore(String[] keys, MessageTemplate[] templates) {
+        this.keys = keys;
+        this.templates = templates;
+    }
+
+    public static TranslationStore forLocale(String locale, File dataFolder, Logger logger) {
+        return LOCALES.computeIfAbsent(locale.toLowerCase(), name -> load(name, dataFolder, logger));
+    }
+
+    private static TranslationStore load(String locale, File dataFolder, Logger logger) {
+        String fileName = locale + ".json";
+        File override = new File(new File(dataFolder, "lang"), fileName);
+        try (InputStream is = override.exists() ? new FileInputStream(override) : TranslationStore.class.getClassLoader().getResourceAsStream(fileName)) {
+            if (is == null) {
+                throw new RuntimeException("Cannot find " + fileName + " resource");
+            }
+            return parse(is);
+        } catch (Exception e) {
+            logger.warning("Failed to load translations for " + locale + ": " + e.getMessage());
+            return new TranslationStore(new String[0], new MessageTemplate[0]);
+        }
+    }
+
+    private static TranslationStore parse(InputStream is) throws IOException {
+        TreeMap<String, MessageTemplate> entries = new TreeMap<>();
+        try (JsonReader reader = new JsonReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String key = reader.nextName();
+                if (isRetained(key) && reader.peek() == JsonToken.STRING) {
+                    entries.put(key.intern(), MessageTemplate.compile(reader.nextString()));
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+        return new TranslationStore(entries.keySet().toArray(new String[0]), entries.values().toArray(new MessageTemplate[0]));
+    }
+
+    private static boolean isRetained(String key) {
+        for (String namespace : NAMESPACES) {
+            if (key.startsWith(namespace)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public MessageTemplate get(String key) {
+        int index = Arrays.binarySearch(keys, key);
+        return index >= 0 ? templates[index] : null;
+    }
+
+    public int size() {
+        return keys.length;
+    }
+}
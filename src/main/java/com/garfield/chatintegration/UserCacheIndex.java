@@ -0,0 +1,133 @@
+package com.garfield.chatintegration;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+/**
+ * Persistent UUID to name index over the server's usercache.json. The file is only re-read when its
+ * modification time changes, and reloads update entries in place rather than building a second map.
+ */
+public class UserCacheIndex {
+    private static final long CHECK_INTERVAL_MILLIS = 5000L;
+
+    private final File file;
+    private final Logger logger;
+    private final Executor executor;
+    private final Map<UUID, NameEntry> names = new ConcurrentHashMap<>();
+    private final AtomicBoolean reloading = new AtomicBoolean();
+    private volatile long loadedModified = -1L;
+    private volatile long lastChecked;
+    private long generation;
+
+    private static final class NameEntry {
+        volatile String name;
+        volatile long generation;
+
+        NameEntry(String name, long generation) {
+            this.name = name;
+            this.generation = generation;
+        }
+    }
+
+    public UserCacheIndex(File file, Logger logger, Executor executor) {
+        this.file = file;
+        this.logger = logger;
+        this.executor = executor;
+    }
+
+    public String getName(UUID playerId) {
+        checkForChanges();
+        NameEntry entry = names.get(playerId);
+        return entry != null ? entry.name : null;
+    }
+
+    public void put(UUID playerId, String name) {
+        NameEntry entry = names.get(playerId);
+        if (entry != null) {
+            entry.name = name;
+        } else {
+            names.put(playerId, new NameEntry(name, Long.MAX_VALUE));
+        }
+    }
+
+    public void checkForChanges() {
+        long now = System.currentTimeMillis();
+        if (now - lastChecked < CHECK_INTERVAL_MILLIS) {
+            return;
+        }
+        lastChecked = now;
+        if (file.lastModified() != loadedModified && reloading.compareAndSet(false, true)) {
+            CompletableFuture.runAsync(this::reload, executor).whenComplete((ignored, error) -> reloading.set(false));
+        }
+    }
+
+    public synchronized void reload() {
+        if (!file.exists()) {
+            if (loadedModified != 0L) {
+                logger.warning("usercache.json file not found!");
+            }
+            loadedModified = 0L;
+            return;
+        }
+        long modified = file.lastModified();
+        long current = ++generation;
+        try (JsonReader reader = new JsonReader(new FileReader(file))) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                readEntry(reader, current);
+            }
+            reader.endArray();
+        } catch (IOException | IllegalStateException e) {
+            e.printStackTrace();
+            return;
+        }
+        names.values().removeIf(entry -> entry.generation < current);
+        loadedModified = modified;
+    }
+
+    private void readEntry(JsonReader reader, long current) throws IOException {
+        String uuid = null;
+        String name = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String field = reader.nextName();
+            if (reader.peek() == JsonToken.STRING && field.equals("uuid")) {
+                uuid = reader.nextString();
+            } else if (reader.peek() == JsonToken.STRING && field.equals("name")) {
+                name = reader.nextString();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        if (uuid == null || name == null) {
+            return;
+        }
+        UUID playerId;
+        try {
+            playerId = UUID.fromString(uuid);
+        } catch (IllegalArgumentException e) {
+            return;
+        }
+        NameEntry entry = names.get(playerId);
+        if (entry == null) {
+            names.put(playerId, new NameEntry(name, current));
+        } else {
+            if (!entry.name.equals(name)) {
+                entry.name = name;
+            }
+            entry.generation = current;
+        }
+    }
+}
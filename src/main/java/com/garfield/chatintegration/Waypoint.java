@@ -0,0 +1,7 @@
+package com.garfield.chatintegration;
+
+/**
+ * A waypoint shared in chat. {@code colour} is the xaero colour index, or -1 when the format carries none.
+ */
+public record Waypoint(String name, String x, String y, String z, String dimension, int colour) {
+}
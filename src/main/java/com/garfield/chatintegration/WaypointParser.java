@@ -0,0 +1,200 @@
+package com.garfield.chatintegration;
+
+/**
+ * Index-scanning parser for waypoint shares. Understands xaero's
+ * {@code xaero-waypoint:name:initial:x:y:z:colour:disabled:type:dimension} lines and the bracketed
+ * {@code [name:Home, x:1, y:64, z:-2, dim:minecraft:overworld]} form used by VoxelMap and JourneyMap.
+ * Lines are only accepted when x and z are integers and y is an integer or {@code ~}.
+ */
+public final class WaypointParser {
+    public static final String XAERO_PREFIX = "xaero-waypoint:";
+    private static final String XAERO_DIMENSION_PREFIX = "internal-";
+    private static final String XAERO_DIMENSION_SUFFIX = "-waypoints";
+    private static final int MAX_COORDINATE_DIGITS = 9;
+
+    private WaypointParser() {
+    }
+
+    public static Waypoint parse(String message) {
+        if (message.startsWith(XAERO_PREFIX)) {
+            return parseXaero(message);
+        }
+        int open = message.indexOf('[');
+        if (open < 0) {
+            return null;
+        }
+        int close = message.indexOf(']', open);
+        return close > open ? parseBracketed(message, open + 1, close) : null;
+    }
+
+    private static Waypoint parseXaero(String message) {
+        String name = null;
+        String x = null;
+        String y = null;
+        String z = null;
+        String dimension = null;
+        int colour = -1;
+        int start = XAERO_PREFIX.length();
+        for (int field = 1; field <= 9; field++) {
+            int end = message.indexOf(':', start);
+            if (end < 0) {
+                if (field < 9) {
+                    return null;
+                }
+                end = message.length();
+            }
+            if (((field == 3 || field == 5) && !isInteger(message, start, end)) || (field == 4 && !isHeight(message, start, end))) {
+                return null;
+            }
+            switch (field) {
+                case 1 -> name = message.substring(start, end);
+                case 3 -> x = message.substring(start, end);
+                case 4 -> y = message.substring(start, end);
+                case 5 -> z = message.substring(start, end);
+                case 6 -> colour = parseIndex(message, start, end);
+                case 9 -> dimension = dimensionName(message, start, end);
+                default -> {
+                }
+            }
+            start = end + 1;
+        }
+        if (dimension == null || dimension.isEmpty()) {
+            return null;
+        }
+        return new Waypoint(name, x, y, z, dimension, colour);
+    }
+
+    private static Waypoint parseBracketed(String message, int start, int end) {
+        String name = null;
+        String x = null;
+        String y = null;
+        String z = null;
+        String dimension = null;
+        int position = start;
+        while (position < end) {
+            int comma = message.indexOf(',', position);
+            int segmentEnd = (comma < 0 || comma > end) ? end : comma;
+            int colon = message.indexOf(':', position);
+            if (colon < 0 || colon >= segmentEnd) {
+                return null;
+            }
+            int keyStart = skipSpaces(message, position, colon);
+            int keyEnd = trimSpaces(message, keyStart, colon);
+            int valueStart = skipSpaces(message, colon + 1, segmentEnd);
+            int valueEnd = trimSpaces(message, valueStart, segmentEnd);
+            if (valueEnd - valueStart >= 2 && message.charAt(valueStart) == '"' && message.charAt(valueEnd - 1) == '"') {
+                valueStart++;
+                valueEnd--;
+            }
+            if (keyMatches(message, keyStart, keyEnd, "name")) {
+                name = message.substring(valueStart, valueEnd);
+            } else if (keyMatches(message, keyStart, keyEnd, "x")) {
+                if (!isInteger(message, valueStart, valueEnd)) {
+                    return null;
+                }
+                x = message.substring(valueStart, valueEnd);
+            } else if (keyMatches(message, keyStart, keyEnd, "y")) {
+                if (!isHeight(message, valueStart, valueEnd)) {
+                    return null;
+                }
+                y = message.substring(valueStart, valueEnd);
+            } else if (keyMatches(message, keyStart, keyEnd, "z")) {
+                if (!isInteger(message, valueStart, valueEnd)) {
+                    return null;
+                }
+                z = message.substring(valueStart, valueEnd);
+            } else if (keyMatches(message, keyStart, keyEnd, "dim") || keyMatches(message, keyStart, keyEnd, "dimension")) {
+                dimension = dimensionName(message, valueStart, valueEnd);
+            }
+            position = segmentEnd + 1;
+        }
+        if (x == null || z == null) {
+            return null;
+        }
+        return new Waypoint(name != null ? name : "Shared location", x, y != null ? y : "~", z, dimension != null ? dimension : "Overworld", -1);
+    }
+
+    /**
+     * Maps a dimension id to its display name. The id may carry a namespace ({@code minecraft:the_end})
+     * or be xaero's {@code Internal-the-end-waypoints}; the remaining name must match exactly.
+     */
+    private static String dimensionName(String message, int start, int end) {
+        int nameStart = start;
+        int nameEnd = end;
+        if (nameEnd - nameStart > XAERO_DIMENSION_SUFFIX.length()
+                && message.regionMatches(true, nameEnd - XAERO_DIMENSION_SUFFIX.length(), XAERO_DIMENSION_SUFFIX, 0, XAERO_DIMENSION_SUFFIX.length())) {
+            nameEnd -= XAERO_DIMENSION_SUFFIX.length();
+        }
+        if (nameEnd - nameStart > XAERO_DIMENSION_PREFIX.length()
+                && message.regionMatches(true, nameStart, XAERO_DIMENSION_PREFIX, 0, XAERO_DIMENSION_PREFIX.length())) {
+            nameStart += XAERO_DIMENSION_PREFIX.length();
+        }
+        int colon = message.lastIndexOf(':', nameEnd - 1);
+        if (colon >= nameStart) {
+            nameStart = colon + 1;
+        }
+        if (keyMatches(message, nameStart, nameEnd, "overworld")) {
+            return "Overworld";
+        } else if (keyMatches(message, nameStart, nameEnd, "nether") || keyMatches(message, nameStart, nameEnd, "the_nether")
+                || keyMatches(message, nameStart, nameEnd, "the-nether")) {
+            return "Nether";
+        } else if (keyMatches(message, nameStart, nameEnd, "end") || keyMatches(message, nameStart, nameEnd, "the_end")
+                || keyMatches(message, nameStart, nameEnd, "the-end")) {
+            return "End";
+        }
+        return message.substring(start, end);
+    }
+
+    private static boolean isInteger(String message, int start, int end) {
+        if (start < end && message.charAt(start) == '-') {
+            start++;
+        }
+        if (start == end || end - start > MAX_COORDINATE_DIGITS) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            char c = message.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isHeight(String message, int start, int end) {
+        return (end - start == 1 && message.charAt(start) == '~') || isInteger(message, start, end);
+    }
+
+    private static boolean keyMatches(String message, int start, int end, String key) {
+        return end - start == key.length() && message.regionMatches(true, start, key, 0, key.length());
+    }
+
+    private static int parseIndex(String message, int start, int end) {
+        if (start == end || end - start > 4) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = message.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static int skipSpaces(String message, int start, int end) {
+        while (start < end && message.charAt(start) == ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    private static int trimSpaces(String message, int start, int end) {
+        while (end > start && message.charAt(end - 1) == ' ') {
+            end--;
+        }
+        return end;
+    }
+}
@@ -0,0 +1,73 @@
+package com.garfield.chatintegration;
+
+import club.minnced.discord.webhook.send.WebhookEmbed;
+import club.minnced.discord.webhook.send.WebhookEmbedBuilder;
+import org.json.JSONObject;
+
+import java.awt.*;
+import java.io.InputStream;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Scanner;
+
+/**
+ * Renders parsed waypoints straight into webhook embeds.
+ */
+public class WaypointRenderer {
+    private static final WebhookEmbed.EmbedTitle TITLE = new WebhookEmbed.EmbedTitle("Waypoint", null);
+    private static final int DEFAULT_COLOUR = Color.RED.getRGB() & 0xFFFFFF;
+
+    private final WorldSeedCache seeds;
+    private final int[] colours;
+
+    public WaypointRenderer(WorldSeedCache seeds) {
+        this.seeds = seeds;
+        this.colours = loadColours();
+    }
+
+    private int[] loadColours() {
+        int[] colourTable = new int[16];
+        Arrays.fill(colourTable, DEFAULT_COLOUR);
+        try (InputStream is = getClass().getClassLoader().getResourceAsStream("colours.json")) {
+            if (is == null) {
+                throw new RuntimeException("Cannot find colours.json resource");
+            }
+            Scanner scanner = new Scanner(is, StandardCharsets.UTF_8);
+            String jsonText = scanner.useDelimiter("\\A").next();
+            JSONObject jsonObject = new JSONObject(jsonText);
+
+            for (String key : jsonObject.keySet()) {
+                int index = Integer.parseInt(key);
+                if (index >= 0 && index < colourTable.length) {
+                    colourTable[index] = Color.decode(jsonObject.getString(key)).getRGB() & 0xFFFFFF;
+                }
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return colourTable;
+    }
+
+    public WebhookEmbed render(Waypoint waypoint, String rawMessage) {
+        Long seed = seeds.getSeed(waypoint.dimension());
+        String x = waypoint.x();
+        String z = waypoint.z();
+        StringBuilder url = new StringBuilder(160)
+                .append("https://www.chunkbase.com/apps/seed-map#seed=").append(seed)
+                .append("&platform=java_1_21_4&dimension=").append(URLEncoder.encode(waypoint.dimension(), StandardCharsets.UTF_8))
+                .append("&x=").append(x).append("&z=").append(z)
+                .append("&pinX=").append(x).append("&pinZ=").append(z)
+                .append("&zoom=0.5");
+        int colour = (waypoint.colour() >= 0 && waypoint.colour() < colours.length) ? colours[waypoint.colour()] : DEFAULT_COLOUR;
+        return new WebhookEmbedBuilder()
+                .setTitle(TITLE)
+                .setDescription("**" + waypoint.name() + "**")
+                .addField(new WebhookEmbed.EmbedField(false, "Dimension", waypoint.dimension()))
+                .addField(new WebhookEmbed.EmbedField(true, "Seed Map", "[Click Here!](" + url + ")"))
+                .addField(new WebhookEmbed.EmbedField(false, "Co-ordinates", "**x**: " + x + ", **y**: " + waypoint.y() + ", **z**: " + z))
+                .setColor(colour)
+                .setFooter(new WebhookEmbed.EmbedFooter(rawMessage, null))
+                .build();
+    }
+}
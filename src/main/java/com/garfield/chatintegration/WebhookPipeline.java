@@ -0,0 +1,502 @@
+package com.garfield.chatintegration;
+
+import club.minnced.discord.webhook.WebhookClient;
+import club.minnced.discord.webhook.exception.HttpException;
+import club.minnced.discord.webhook.send.AllowedMentions;
+import club.minnced.discord.webhook.send.WebhookEmbed;
+import club.minnced.discord.webhook.send.WebhookMessage;
+import club.minnced.discord.webhook.send.WebhookMessageBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Bounded outbound stage in front of the webhook client. Consecutive messages from the same
+ * username and avatar are coalesced into a single post, and posts are sent one at a time so the
+ * client's rate-limit handling paces the queue instead of letting it grow without bound. Messages
+ * submitted before {@link #start} are held in the queue until the bridge is ready. With the spool
+ * enabled every message is first written to an {@link OutboundSpool} and only released once Discord
+ * accepts it; the in-memory queue then only caches the newest messages, and anything that does not
+ * fit is picked up from the spool, which is replayed in order at a limited rate. The spool's disk
+ * budget, not the queue capacity, bounds how much an outage can hold.
+ */
+public class WebhookPipeline {
+    private static final int MAX_CONTENT_LENGTH = 2000;
+    private static final int MAX_EMBEDS = 10;
+
+    public enum Kind {
+        CHAT(null),
+        JOIN("joins"),
+        LEAVE("leaves"),
+        DEATH("deaths"),
+        ADVANCEMENT("advancements"),
+        STATUS("status messages");
+
+        private final String plural;
+
+        Kind(String plural) {
+            this.plural = plural;
+        }
+
+        public boolean isSystem() {
+            return this != CHAT;
+        }
+    }
+
+    public enum OverflowPolicy {
+        DROP_SYSTEM,
+        SUMMARISE
+    }
+
+    public record OutboundMessage(String content, WebhookEmbed embed, String username, String avatarUrl, Kind kind, long threadId, long enqueuedAt, long sequence) {
+        boolean sameSender(OutboundMessage other) {
+            return threadId == other.threadId && Objects.equals(username, other.username) && Objects.equals(avatarUrl, other.avatarUrl);
+        }
+    }
+
+    private volatile WebhookClient webhookClient;
+    private final Map<Long, WebhookClient> threadClients = new ConcurrentHashMap<>();
+    private final Logger logger;
+    private final Supplier<String> systemAvatarUrl;
+    private final BlockingQueue<OutboundMessage> queue;
+    private final long lingerMillis;
+    private final int batchSize;
+    private final OverflowPolicy overflowPolicy;
+    private final Map<Kind, Integer> overflowCounts = new EnumMap<>(Kind.class);
+    private volatile Thread sender;
+    private volatile boolean running = true;
+    private final BridgeMetrics metrics;
+    private final Object submitLock = new Object();
+    private final OutboundSpool spool;
+    private final long replayIntervalMillis;
+    private volatile boolean replaying;
+    private long deliveredThrough;
+
+    public WebhookPipeline(ChatIntegration plugin, BridgeExecutor executor, BridgeMetrics metrics, Supplier<String> systemAvatarUrl) {
+        this.logger = plugin.getLogger();
+        this.metrics = metrics;
+        this.systemAvatarUrl = systemAvatarUrl;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, plugin.getConfig().getInt("webhook.queueCapacity", 1000)));
+        this.lingerMillis = plugin.getConfig().getLong("webhook.lingerMillis", 250);
+        this.batchSize = Math.max(1, plugin.getConfig().getInt("webhook.batchSize", 20));
+        this.overflowPolicy = parsePolicy(plugin.getConfig().getString("webhook.overflowPolicy", "SUMMARISE"));
+        this.spool = openSpool(plugin, executor);
+        this.replayIntervalMillis = 1000L / Math.max(1, plugin.getConfig().getInt("spool.replayPostsPerSecond", 2));
+        if (spool != null) {
+            this.deliveredThrough = spool.getAcknowledged();
+            if (spool.getPending() > 0) {
+                this.replaying = true;
+                logger.info("Replaying " + spool.getPending() + " spooled webhook messages once Discord is reachable");
+            }
+        }
+    }
+
+    private OutboundSpool openSpool(ChatIntegration plugin, BridgeExecutor executor) {
+        if (!plugin.getConfig().getBoolean("spool.enabled", true)) {
+            return null;
+        }
+        try {
+            return new OutboundSpool(new File(plugin.getDataFolder(), "spool"), logger, executor,
+                    plugin.getConfig().getInt("spool.segmentBytes", 4 << 20),
+                    plugin.getConfig().getLong("spool.maxBytes", 64L << 20));
+        } catch (IOException e) {
+            logger.warning("Failed to open outbound spool, messages will only be queued in memory: " + e.getMessage());
+            return null;
+        }
+    }
+
+    public synchronized void start(WebhookClient webhookClient, ThreadFactory threadFactory) {
+        if (sender != null || !running) {
+            return;
+        }
+        this.webhookClient = webhookClient;
+        this.sender = threadFactory.newThread(this::run);
+        this.sender.start();
+    }
+
+    private OverflowPolicy parsePolicy(String value) {
+        try {
+            return OverflowPolicy.valueOf(value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            logger.warning("Unknown webhook.overflowPolicy '" + value + "', using SUMMARISE");
+            return OverflowPolicy.SUMMARISE;
+        }
+    }
+
+    public boolean submit(String content, WebhookEmbed embed, String username, String avatarUrl, Kind kind) {
+        return submit(content, embed, username, avatarUrl, kind, 0L);
+    }
+
+    public boolean submit(String content, WebhookEmbed embed, String username, String avatarUrl, Kind kind, long threadId) {
+        if (!running) {
+            return false;
+        }
+        synchronized (submitLock) {
+            long sequence = append(content, embed, username, avatarUrl, kind, threadId);
+            OutboundMessage message = new OutboundMessage(content, embed, username, avatarUrl, kind, threadId, System.nanoTime(), sequence);
+            if (sequence != 0L) {
+                // Already on disk: if the cache is full the sender reads it back from the spool.
+                if (!queue.offer(message)) {
+                    replaying = true;
+                }
+                return true;
+            }
+            // Only the sender takes from the queue, so once there is room here the offer cannot fail.
+            if (queue.remainingCapacity() == 0 && (kind.isSystem() || !evictSystemMessage())) {
+                recordOverflow(kind);
+                return false;
+            }
+            return queue.offer(message);
+        }
+    }
+
+    private long append(String content, WebhookEmbed embed, String username, String avatarUrl, Kind kind, long threadId) {
+        if (spool == null) {
+            return 0L;
+        }
+        try {
+            return spool.append(threadId, HubProtocol.encodeOutbound(content, embed, username, avatarUrl, kind, null));
+        } catch (IOException e) {
+            logger.warning("Failed to spool webhook message: " + e.getMessage());
+            return 0L;
+        }
+    }
+
+    private boolean evictSystemMessage() {
+        Iterator<OutboundMessage> iterator = queue.iterator();
+        while (iterator.hasNext()) {
+            OutboundMessage queued = iterator.next();
+            if (queued.kind().isSystem()) {
+                iterator.remove();
+                recordOverflow(queued.kind());
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void recordOverflow(Kind kind) {
+        metrics.outboundDropped.increment();
+        if (overflowPolicy == OverflowPolicy.SUMMARISE && kind.isSystem()) {
+            synchronized (overflowCounts) {
+                overflowCounts.merge(kind, 1, Integer::sum);
+            }
+        }
+    }
+
+    private void run() {
+        List<OutboundMessage> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                if (replaying) {
+                    if (!running || !replay(batch)) {
+                        return;
+                    }
+                    continue;
+                }
+                OutboundMessage first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null || alreadyDelivered(first)) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    OutboundMessage next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    if (!alreadyDelivered(next)) {
+                        batch.add(next);
+                    }
+                }
+                OutboundMessage summary = takeOverflowSummary();
+                if (summary != null) {
+                    batch.add(summary);
+                }
+                if (!flush(batch)) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private boolean alreadyDelivered(OutboundMessage message) {
+        return message.sequence() != 0L && message.sequence() <= deliveredThrough;
+    }
+
+    /**
+     * Sends the next slice of the spool backlog, pacing posts so a long outage does not turn into a
+     * burst against the rate limit. Queued copies of replayed messages are dropped as replay passes
+     * them, so the queue keeps taking new messages. Replay ends once the spool holds nothing past the
+     * last delivery.
+     */
+    private boolean replay(List<OutboundMessage> batch) throws InterruptedException {
+        List<OutboundSpool.Record> records = spool.readUnacknowledged(deliveredThrough, batchSize);
+        if (records.isEmpty()) {
+            synchronized (submitLock) {
+                if (spool.readUnacknowledged(deliveredThrough, 1).isEmpty()) {
+                    replaying = false;
+                }
+            }
+            return true;
+        }
+        for (OutboundSpool.Record record : records) {
+            try {
+                HubProtocol.Outbound outbound = HubProtocol.decodeOutbound(record.payload());
+                batch.add(new OutboundMessage(outbound.content(), outbound.embed(), outbound.username(), outbound.avatarUrl(),
+                        outbound.kind(), record.threadId(), System.nanoTime(), record.sequence()));
+            } catch (IOException e) {
+                logger.warning("Skipping unreadable spooled message " + record.sequence() + ": " + e.getMessage());
+                deliveredThrough = record.sequence();
+                spool.acknowledge(record.sequence());
+            }
+        }
+        try {
+            if (!flush(batch)) {
+                return false;
+            }
+        } finally {
+            batch.clear();
+        }
+        OutboundMessage head;
+        while ((head = queue.peek()) != null && alreadyDelivered(head)) {
+            queue.poll();
+        }
+        Thread.sleep(replayIntervalMillis);
+        return true;
+    }
+
+    private OutboundMessage takeOverflowSummary() {
+        StringBuilder summary = new StringBuilder();
+        synchronized (overflowCounts) {
+            if (overflowCounts.isEmpty()) {
+                return null;
+            }
+            for (Map.Entry<Kind, Integer> entry : overflowCounts.entrySet()) {
+                summary.append(summary.isEmpty() ? "-# " : ", ").append(entry.getValue()).append(" more ").append(entry.getKey().plural);
+            }
+            overflowCounts.clear();
+        }
+        return new OutboundMessage(summary.toString(), null, "System", systemAvatarUrl.get(), Kind.STATUS, 0L, System.nanoTime(), 0L);
+    }
+
+    private boolean flush(List<OutboundMessage> batch) throws InterruptedException {
+        StringBuilder content = new StringBuilder();
+        List<WebhookEmbed> embeds = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            OutboundMessage message = batch.get(i);
+            if (i > start) {
+                boolean fits = batch.get(start).sameSender(message)
+                        && (message.content() == null || content.length() + 1 + message.content().length() <= MAX_CONTENT_LENGTH)
+                        && (message.embed() == null || embeds.size() < MAX_EMBEDS);
+                if (!fits) {
+                    if (!post(batch.subList(start, i), content, embeds)) {
+                        return false;
+                    }
+                    content.setLength(0);
+                    embeds.clear();
+                    start = i;
+                }
+            }
+            if (message.content() != null) {
+                if (!content.isEmpty()) {
+                    content.append('\n');
+                }
+                content.append(message.content());
+            }
+            if (message.embed() != null) {
+                embeds.add(message.embed());
+            }
+        }
+        return start >= batch.size() || post(batch.subList(start, batch.size()), content, embeds);
+    }
+
+    static WebhookMessage buildPost(OutboundMessage head, CharSequence content, List<WebhookEmbed> embeds) {
+        WebhookMessageBuilder builder = new WebhookMessageBuilder()
+                .setAllowedMentions(AllowedMentions.none())
+                .setUsername(head.username())
+                .setAvatarUrl(head.avatarUrl());
+        if (!content.isEmpty()) {
+            builder.setContent(content.toString());
+        }
+        if (!embeds.isEmpty()) {
+            builder.addEmbeds(embeds);
+        }
+        return builder.isEmpty() ? null : builder.build();
+    }
+
+    /**
+     * System messages submitted before the bot was ready carry no avatar; they pick up the bot's one
+     * when they are actually sent.
+     */
+    private OutboundMessage withSystemAvatar(OutboundMessage head) {
+        if (head.avatarUrl() != null || !head.kind().isSystem()) {
+            return head;
+        }
+        return new OutboundMessage(head.content(), head.embed(), head.username(), systemAvatarUrl.get(), head.kind(),
+                head.threadId(), head.enqueuedAt(), head.sequence());
+    }
+
+    /**
+     * Sends one post, returning false only when a spooled post could not be delivered during shutdown
+     * and must be left for the next start.
+     */
+    private boolean post(List<OutboundMessage> messages, StringBuilder content, List<WebhookEmbed> embeds) throws InterruptedException {
+        WebhookMessage payload = buildPost(withSystemAvatar(messages.get(0)), content, embeds);
+        if (payload == null) {
+            acknowledge(messages);
+            return true;
+        }
+        long backoffMillis = 1000L;
+        for (int attempt = 0; spool != null || attempt < 3; attempt++) {
+            try {
+                clientFor(messages.get(0).threadId()).send(payload).join();
+                long now = System.nanoTime();
+                for (OutboundMessage message : messages) {
+                    metrics.webhookSend.recordNanos(now - message.enqueuedAt());
+                    if (message.kind() == Kind.CHAT) {
+                        metrics.chatToWebhookAck.recordNanos(now - message.enqueuedAt());
+                    }
+                }
+                metrics.webhookPosts.increment();
+                metrics.webhookMessages.add(messages.size());
+                acknowledge(messages);
+                return true;
+            } catch (CompletionException e) {
+                HttpException http = httpFailure(e);
+                if (http != null && http.getCode() == 429) {
+                    metrics.webhookRateLimits.increment();
+                    Thread.sleep(retryAfterMillis(http));
+                    continue;
+                }
+                metrics.webhookFailures.increment();
+                if (spool == null || !isRetryable(e, http)) {
+                    logger.warning("Failed to send webhook message, discarding it: " + e.getCause());
+                    acknowledge(messages);
+                    return true;
+                }
+                if (!running) {
+                    return false;
+                }
+                if (attempt == 0) {
+                    logger.warning("Discord webhook unavailable, keeping messages spooled: " + e.getCause());
+                }
+                replaying = true;
+                Thread.sleep(backoffMillis);
+                backoffMillis = Math.min(backoffMillis * 2, 30_000L);
+            }
+        }
+        metrics.webhookFailures.increment();
+        logger.warning("Still rate limited after 3 attempts, discarding " + messages.size() + " webhook message" + (messages.size() == 1 ? "" : "s"));
+        return true;
+    }
+
+    private static HttpException httpFailure(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof HttpException http) {
+                return http;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Timeouts, rate limits, server errors and I/O failures may succeed later; any other response or
+     * error (a deleted webhook, a rejected payload) will fail the same way every time.
+     */
+    private static boolean isRetryable(Throwable error, HttpException http) {
+        if (http != null) {
+            return http.getCode() == 408 || http.getCode() == 429 || http.getCode() >= 500;
+        }
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof IOException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void acknowledge(List<OutboundMessage> messages) {
+        if (spool == null) {
+            return;
+        }
+        for (OutboundMessage message : messages) {
+            deliveredThrough = Math.max(deliveredThrough, message.sequence());
+        }
+        spool.acknowledge(deliveredThrough);
+    }
+
+    private WebhookClient clientFor(long threadId) {
+        if (threadId == 0L) {
+            return webhookClient;
+        }
+        return threadClients.computeIfAbsent(threadId, id -> webhookClient.onThread(id));
+    }
+
+    private long retryAfterMillis(HttpException http) {
+        String retryAfter = http.getHeaders().get("Retry-After");
+        if (retryAfter == null) {
+            retryAfter = http.getHeaders().get("X-RateLimit-Reset-After");
+        }
+        try {
+            return retryAfter != null ? (long) (Double.parseDouble(retryAfter) * 1000) : 1000L;
+        } catch (NumberFormatException e) {
+            return 1000L;
+        }
+    }
+
+    public synchronized void close(long timeoutMillis) {
+        running = false;
+        if (sender != null) {
+            try {
+                sender.join(timeoutMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            sender.interrupt();
+        }
+        if (spool != null) {
+            if (spool.getPending() > 0) {
+                logger.info(spool.getPending() + " webhook messages left in the spool for the next start");
+            }
+            spool.close();
+        }
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getSpooledCount() {
+        return spool != null ? spool.getPending() : 0L;
+    }
+
+    public long getSpoolDiskBytes() {
+        return spool != null ? spool.getDiskBytes() : 0L;
+    }
+
+    public long getSpoolDiscarded() {
+        return spool != null ? spool.getDiscarded() : 0L;
+    }
+}
@@ -0,0 +1,54 @@
+package com.garfield.chatintegration;
+
+import org.bukkit.World;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.WorldLoadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Seeds of the loaded worlds by dimension, captured on the main thread so chat threads never touch
+ * the world list.
+ */
+public class WorldSeedCache implements Listener {
+    private final JavaPlugin plugin;
+    private volatile Map<World.Environment, Long> seeds = Map.of();
+
+    public WorldSeedCache(JavaPlugin plugin) {
+        this.plugin = plugin;
+        refresh();
+    }
+
+    public void refresh() {
+        Map<World.Environment, Long> snapshot = new EnumMap<>(World.Environment.class);
+        for (World world : plugin.getServer().getWorlds()) {
+            snapshot.putIfAbsent(world.getEnvironment(), world.getSeed());
+        }
+        this.seeds = snapshot;
+    }
+
+    public Long getSeed(String dimension) {
+        Map<World.Environment, Long> current = seeds;
+        World.Environment environment = switch (dimension) {
+            case "Nether" -> World.Environment.NETHER;
+            case "End" -> World.Environment.THE_END;
+            default -> World.Environment.NORMAL;
+        };
+        Long seed = current.get(environment);
+        return seed != null ? seed : current.get(World.Environment.NORMAL);
+    }
+
+    @EventHandler
+    public void onWorldLoad(WorldLoadEvent event) {
+        refresh();
+    }
+
+    @EventHandler
+    public void onWorldUnload(WorldUnloadEvent event) {
+        plugin.getServer().getScheduler().runTask(plugin, this::refresh);
+    }
+}